@@ -3,8 +3,10 @@ package org.moldidev.moldispizza;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 public class MoldisPizzaApplication {
     public static void main(String[] args) {
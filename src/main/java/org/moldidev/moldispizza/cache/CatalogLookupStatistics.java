@@ -0,0 +1,46 @@
+package org.moldidev.moldispizza.cache;
+
+import org.moldidev.moldispizza.dto.CacheStatisticsDTO;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// the counters of one kind of catalog lookup, kept by the cache so they carry over when a snapshot is swapped
+class CatalogLookupStatistics {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    void recordLookup(boolean hit) {
+        if (hit) {
+            hitCount.increment();
+        }
+
+        else {
+            missCount.increment();
+        }
+    }
+
+    void recordEvictions(long evictions) {
+        evictionCount.add(evictions);
+    }
+
+    void recordInvalidation() {
+        invalidationCount.increment();
+    }
+
+    CacheStatisticsDTO toDTO(long size) {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+
+        return new CacheStatisticsDTO(
+                hits,
+                misses,
+                hits + misses == 0 ? 1.0 : (double) hits / (hits + misses),
+                evictionCount.sum(),
+                invalidationCount.sum(),
+                size
+        );
+    }
+}
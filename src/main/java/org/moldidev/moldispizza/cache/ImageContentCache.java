@@ -0,0 +1,267 @@
+package org.moldidev.moldispizza.cache;
+
+import org.moldidev.moldispizza.dto.ImageContentCacheStatisticsDTO;
+import org.moldidev.moldispizza.storage.ImageStorage;
+import org.moldidev.moldispizza.storage.StoredImage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// image bytes are kept in direct buffers, so a large cache adds nothing to the heap the collector has to walk
+@Component
+public class ImageContentCache {
+
+    private final ImageStorage imageStorage;
+    private final long maximumBytes;
+    private final long maximumEntryBytes;
+
+    // access ordered, the first entry is always the least recently used one
+    private final LinkedHashMap<ImageContentKey, CachedImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    public ImageContentCache(ImageStorage imageStorage,
+                             @Value("${storage.content-cache.maximum-bytes}") long maximumBytes,
+                             @Value("${storage.content-cache.maximum-entry-bytes}") long maximumEntryBytes) {
+        this.imageStorage = imageStorage;
+        this.maximumBytes = maximumBytes;
+        this.maximumEntryBytes = Math.min(maximumEntryBytes, maximumBytes);
+    }
+
+    // the stored content behind a key never changes, so a cached copy is valid until the image itself is removed
+    public StoredImage get(Long imageId, String key) throws IOException {
+        ImageContentKey contentKey = new ImageContentKey(imageId, key);
+        CachedImage cachedImage;
+
+        synchronized (entries) {
+            cachedImage = entries.get(contentKey);
+        }
+
+        if (cachedImage != null) {
+            hitCount.increment();
+            return cachedImage.toStoredImage();
+        }
+
+        missCount.increment();
+
+        StoredImage storedImage = imageStorage.get(key);
+
+        if (storedImage.size() > maximumEntryBytes) {
+            return storedImage;
+        }
+
+        try (InputStream inputStream = storedImage.resource().getInputStream()) {
+            cachedImage = new CachedImage(read(inputStream, storedImage.size().intValue()), storedImage.lastModified());
+        }
+
+        put(contentKey, cachedImage);
+
+        return cachedImage.toStoredImage();
+    }
+
+    public boolean isFull() {
+        synchronized (entries) {
+            return residentBytes >= maximumBytes;
+        }
+    }
+
+    public void invalidate(Long imageId) {
+        if (imageId == null) {
+            return;
+        }
+
+        remove(imageId);
+
+        // remove again once the deletion is visible, so a concurrent read cannot keep the old bytes around
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(imageId);
+                }
+            });
+        }
+    }
+
+    public ImageContentCacheStatisticsDTO getStatistics() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        long entryCount;
+        long bytes;
+
+        synchronized (entries) {
+            entryCount = entries.size();
+            bytes = residentBytes;
+        }
+
+        return new ImageContentCacheStatisticsDTO(
+                hits,
+                misses,
+                hits + misses == 0 ? 1.0 : (double) hits / (hits + misses),
+                evictionCount.sum(),
+                invalidationCount.sum(),
+                entryCount,
+                bytes,
+                maximumBytes
+        );
+    }
+
+    private void put(ImageContentKey contentKey, CachedImage cachedImage) {
+        synchronized (entries) {
+            CachedImage previousImage = entries.put(contentKey, cachedImage);
+
+            if (previousImage != null) {
+                residentBytes -= previousImage.size();
+            }
+
+            residentBytes += cachedImage.size();
+
+            Iterator<Map.Entry<ImageContentKey, CachedImage>> iterator = entries.entrySet().iterator();
+
+            while (residentBytes > maximumBytes && iterator.hasNext()) {
+                Map.Entry<ImageContentKey, CachedImage> eldest = iterator.next();
+
+                if (eldest.getValue() == cachedImage) {
+                    continue;
+                }
+
+                residentBytes -= eldest.getValue().size();
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private void remove(Long imageId) {
+        synchronized (entries) {
+            Iterator<Map.Entry<ImageContentKey, CachedImage>> iterator = entries.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Map.Entry<ImageContentKey, CachedImage> entry = iterator.next();
+
+                if (entry.getKey().imageId().equals(imageId)) {
+                    residentBytes -= entry.getValue().size();
+                    iterator.remove();
+                    invalidationCount.increment();
+                }
+            }
+        }
+    }
+
+    private ByteBuffer read(InputStream inputStream, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private record ImageContentKey(Long imageId, String key) {
+    }
+
+    private record CachedImage(ByteBuffer content, Instant lastModified) {
+
+        private long size() {
+            return content.remaining();
+        }
+
+        private StoredImage toStoredImage() {
+            return new StoredImage(new ByteBufferResource(content), size(), lastModified);
+        }
+    }
+
+    // every reader gets its own view of the shared buffer, so concurrent and range requests do not interfere
+    private static final class ByteBufferResource extends AbstractResource {
+
+        private final ByteBuffer content;
+
+        private ByteBufferResource(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(content.duplicate());
+        }
+
+        @Override
+        public long contentLength() {
+            return content.remaining();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached image content";
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer content;
+
+        private ByteBufferInputStream(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read() {
+            return content.hasRemaining() ? content.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!content.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, content.remaining());
+            content.get(bytes, offset, count);
+
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, content.remaining()));
+            content.position(content.position() + skipped);
+
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return content.remaining();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.moldidev.moldispizza.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.moldidev.moldispizza.dto.CacheStatisticsDTO;
+import org.moldidev.moldispizza.dto.PizzaCatalogStatisticsDTO;
+import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// readers always see one complete snapshot, a write only marks it stale and one reader builds and swaps in the next version
+// a write to one pizza only reloads and re-renders that pizza, everything else is carried over from the current snapshot
+// writes through another instance only reach this one when the snapshot expires, the time to live bounds that staleness
+@Component
+public class PizzaCatalogCache {
+
+    private static final int MAXIMUM_RELOADED_PIZZAS = 64;
+
+    private final ObjectMapper objectMapper;
+    private final long timeToLiveNanos;
+
+    private final AtomicReference<PizzaCatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong fullInvalidationVersion = new AtomicLong();
+    private final Map<Long, Long> changedPizzaVersions = new ConcurrentHashMap<>();
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder staleHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LongAdder partialRebuildCount = new LongAdder();
+
+    private final CatalogLookupStatistics pizzasByIdStatistics = new CatalogLookupStatistics();
+    private final CatalogLookupStatistics pizzasByNameStatistics = new CatalogLookupStatistics();
+    private final CatalogLookupStatistics pizzaPagesStatistics = new CatalogLookupStatistics();
+
+    public PizzaCatalogCache(ObjectMapper objectMapper,
+                             @Value("${catalog.snapshot.time-to-live-seconds}") long timeToLiveSeconds) {
+        this.objectMapper = objectMapper;
+        this.timeToLiveNanos = Duration.ofSeconds(timeToLiveSeconds).toNanos();
+    }
+
+    // only one reader rebuilds, the others keep the stale snapshot meanwhile and only the very first build is waited for
+    // pizzaLoader returns the listed pizzas that are still on the menu, in any order
+    public PizzaCatalogSnapshot get(Supplier<List<PizzaDTO>> loader, Function<Collection<Long>, List<PizzaDTO>> pizzaLoader) {
+        PizzaCatalogSnapshot current = snapshot.get();
+
+        if (current != null && isCurrent(current)) {
+            hitCount.increment();
+            return current;
+        }
+
+        if (current != null && !buildLock.tryLock()) {
+            staleHitCount.increment();
+            return current;
+        }
+
+        if (current == null) {
+            buildLock.lock();
+        }
+
+        try {
+            current = snapshot.get();
+
+            if (current != null && isCurrent(current)) {
+                hitCount.increment();
+                return current;
+            }
+
+            missCount.increment();
+
+            long buildVersion = version.get();
+            Set<Long> changedPizzaIds = current != null ? changedPizzaIdsSince(current) : Set.of();
+
+            List<PizzaDTO> pizzas = canReload(current, changedPizzaIds)
+                    ? reload(current, changedPizzaIds, pizzaLoader)
+                    : loader.get();
+
+            PizzaCatalogSnapshot next = new PizzaCatalogSnapshot(buildVersion, pizzas, objectMapper, current,
+                    pizzasByIdStatistics, pizzasByNameStatistics, pizzaPagesStatistics);
+
+            // a write that landed while the menu was being read may not be in it, so it is served once but not published
+            if (version.get() == buildVersion) {
+                snapshot.set(next);
+
+                // a newer change to the same pizza replaces its entry, so only the ones this build covered are dropped
+                changedPizzaVersions.entrySet().removeIf(entry -> entry.getValue() <= buildVersion);
+            }
+
+            return next;
+        }
+
+        finally {
+            buildLock.unlock();
+        }
+    }
+
+    // for changes that reach many pizzas at once, such as image variants embedded in every pizza that shows them
+    public void invalidate() {
+        invalidate(() -> {
+            fullInvalidationVersion.accumulateAndGet(version.incrementAndGet(), Math::max);
+            invalidationCount.increment();
+        });
+    }
+
+    public void invalidate(Long pizzaId) {
+        invalidate(() -> {
+            changedPizzaVersions.merge(pizzaId, version.incrementAndGet(), Math::max);
+            invalidationCount.increment();
+            pizzasByIdStatistics.recordInvalidation();
+            pizzasByNameStatistics.recordInvalidation();
+        });
+    }
+
+    private void invalidate(Runnable invalidation) {
+        invalidation.run();
+
+        // invalidate again once the change is visible, so a rebuild that read the old rows is not published
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private boolean isCurrent(PizzaCatalogSnapshot current) {
+        return current.getVersion() == version.get() && !isExpired(current);
+    }
+
+    private boolean isExpired(PizzaCatalogSnapshot current) {
+        return System.nanoTime() - current.getBuiltAtNanos() > timeToLiveNanos;
+    }
+
+    private Set<Long> changedPizzaIdsSince(PizzaCatalogSnapshot current) {
+        return changedPizzaVersions.entrySet()
+                .stream()
+                .filter(entry -> entry.getValue() > current.getVersion())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    // an expired snapshot is read in full, it may be missing writes made through another instance
+    private boolean canReload(PizzaCatalogSnapshot current, Set<Long> changedPizzaIds) {
+        return current != null
+                && !isExpired(current)
+                && fullInvalidationVersion.get() <= current.getVersion()
+                && changedPizzaIds.size() <= MAXIMUM_RELOADED_PIZZAS;
+    }
+
+    // a changed pizza that is no longer returned was deleted, the menu stays ordered by id like a full read
+    private List<PizzaDTO> reload(PizzaCatalogSnapshot current,
+                                  Set<Long> changedPizzaIds,
+                                  Function<Collection<Long>, List<PizzaDTO>> pizzaLoader) {
+        Map<Long, PizzaDTO> pizzas = new TreeMap<>();
+
+        for (PizzaDTO pizza : current.getPizzas()) {
+            if (!changedPizzaIds.contains(pizza.pizzaId())) {
+                pizzas.put(pizza.pizzaId(), pizza);
+            }
+        }
+
+        if (!changedPizzaIds.isEmpty()) {
+            for (PizzaDTO pizza : pizzaLoader.apply(changedPizzaIds)) {
+                pizzas.put(pizza.pizzaId(), pizza);
+            }
+        }
+
+        partialRebuildCount.increment();
+
+        return new ArrayList<>(pizzas.values());
+    }
+
+    public PizzaCatalogStatisticsDTO getStatistics() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        PizzaCatalogSnapshot current = snapshot.get();
+
+        long pizzaCount = current != null ? current.getPizzaCount() : 0L;
+        long renderedPageCount = current != null ? current.getRenderedPageCount() : 0L;
+
+        Map<String, CacheStatisticsDTO> lookups = new LinkedHashMap<>();
+
+        lookups.put("pizzasById", pizzasByIdStatistics.toDTO(pizzaCount));
+        lookups.put("pizzasByName", pizzasByNameStatistics.toDTO(pizzaCount));
+        lookups.put("pizzaPages", pizzaPagesStatistics.toDTO(renderedPageCount));
+
+        return new PizzaCatalogStatisticsDTO(
+                version.get(),
+                hits,
+                staleHitCount.sum(),
+                misses,
+                hits + misses == 0 ? 1.0 : (double) hits / (hits + misses),
+                invalidationCount.sum(),
+                misses - partialRebuildCount.sum(),
+                partialRebuildCount.sum(),
+                pizzaCount,
+                renderedPageCount,
+                lookups
+        );
+    }
+}
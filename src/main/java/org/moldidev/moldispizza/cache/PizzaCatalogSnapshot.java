@@ -0,0 +1,211 @@
+package org.moldidev.moldispizza.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.response.RenderedResponse;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+// one published version of the menu, every response is serialized and compressed once and then only copied out
+public class PizzaCatalogSnapshot {
+
+    private static final int MAXIMUM_RENDERED_PAGES = 256;
+
+    private final long version;
+    private final long builtAtNanos;
+    private final String publishedAt;
+    private final List<PizzaDTO> pizzas;
+    private final Map<Long, PizzaDTO> pizzaDTOsById;
+    private final Map<Long, RenderedResponse> pizzasById;
+    private final Map<String, RenderedResponse> pizzasByName;
+    private final ObjectMapper objectMapper;
+    private final CatalogLookupStatistics pizzasByIdStatistics;
+    private final CatalogLookupStatistics pizzasByNameStatistics;
+    private final CatalogLookupStatistics pizzaPagesStatistics;
+
+    // pages are derived from the immutable pizza list, so rendering them lazily still gives the same bytes
+    private final Map<PageRequest, RenderedResponse> pizzaPages = new ConcurrentHashMap<>();
+
+    // pizzas that are unchanged since the previous snapshot keep their rendered bytes, only the changed ones are serialized again
+    PizzaCatalogSnapshot(long version,
+                         List<PizzaDTO> pizzas,
+                         ObjectMapper objectMapper,
+                         PizzaCatalogSnapshot previous,
+                         CatalogLookupStatistics pizzasByIdStatistics,
+                         CatalogLookupStatistics pizzasByNameStatistics,
+                         CatalogLookupStatistics pizzaPagesStatistics) {
+        this.version = version;
+        this.builtAtNanos = System.nanoTime();
+        this.publishedAt = LocalDateTime.now().toString();
+        this.pizzas = List.copyOf(pizzas);
+        this.objectMapper = objectMapper;
+        this.pizzasByIdStatistics = pizzasByIdStatistics;
+        this.pizzasByNameStatistics = pizzasByNameStatistics;
+        this.pizzaPagesStatistics = pizzaPagesStatistics;
+
+        Map<Long, PizzaDTO> pizzaDTOsById = new HashMap<>();
+        Map<Long, RenderedResponse> pizzasById = new HashMap<>();
+        Map<String, RenderedResponse> pizzasByName = new HashMap<>();
+        int reusedPizzas = 0;
+
+        for (PizzaDTO pizza : this.pizzas) {
+            RenderedResponse rendered;
+
+            if (previous != null && pizza.equals(previous.pizzaDTOsById.get(pizza.pizzaId()))) {
+                rendered = previous.pizzasById.get(pizza.pizzaId());
+                reusedPizzas++;
+            }
+
+            else {
+                rendered = render(Map.of("pizzaDTO", pizza));
+            }
+
+            pizzaDTOsById.put(pizza.pizzaId(), pizza);
+            pizzasById.put(pizza.pizzaId(), rendered);
+            pizzasByName.put(normalize(pizza.name()), rendered);
+        }
+
+        this.pizzaDTOsById = Map.copyOf(pizzaDTOsById);
+        this.pizzasById = Map.copyOf(pizzasById);
+        this.pizzasByName = Map.copyOf(pizzasByName);
+
+        // a page covers a range of the menu, so none of them survive a swap
+        if (previous != null) {
+            pizzasByIdStatistics.recordEvictions(previous.pizzasById.size() - reusedPizzas);
+            pizzasByNameStatistics.recordEvictions(previous.pizzasByName.size() - reusedPizzas);
+            pizzaPagesStatistics.recordEvictions(previous.pizzaPages.size());
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBuiltAtNanos() {
+        return builtAtNanos;
+    }
+
+    public List<PizzaDTO> getPizzas() {
+        return pizzas;
+    }
+
+    public int getPizzaCount() {
+        return pizzas.size();
+    }
+
+    public int getRenderedPageCount() {
+        return pizzaPages.size();
+    }
+
+    public PizzaDTO findDTOById(Long pizzaId) {
+        return pizzaDTOsById.get(pizzaId);
+    }
+
+    public RenderedResponse findById(Long pizzaId) {
+        RenderedResponse rendered = pizzasById.get(pizzaId);
+
+        pizzasByIdStatistics.recordLookup(rendered != null);
+        return rendered;
+    }
+
+    public RenderedResponse findByName(String name) {
+        RenderedResponse rendered = pizzasByName.get(normalize(name));
+
+        pizzasByNameStatistics.recordLookup(rendered != null);
+        return rendered;
+    }
+
+    // null when the page is past the end of the menu
+    public RenderedResponse findPage(int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        RenderedResponse rendered = pizzaPages.get(pageRequest);
+
+        pizzaPagesStatistics.recordLookup(rendered != null);
+
+        if (rendered != null) {
+            return rendered;
+        }
+
+        long offset = pageRequest.getOffset();
+
+        if (offset >= pizzas.size()) {
+            return null;
+        }
+
+        List<PizzaDTO> content = pizzas.subList((int) offset, (int) Math.min(pizzas.size(), offset + size));
+        rendered = render(Map.of("pizzasDTOs", new PageImpl<>(content, pageRequest, pizzas.size())));
+
+        // clients choose the page size, so only a bounded number of pages is kept
+        if (pizzaPages.size() < MAXIMUM_RENDERED_PAGES) {
+            pizzaPages.putIfAbsent(pageRequest, rendered);
+        }
+
+        return rendered;
+    }
+
+    private RenderedResponse render(Map<String, Object> data) {
+        HTTPResponse response = HTTPResponse
+                .builder()
+                .data(data)
+                .status(HttpStatus.OK)
+                .timestamp(publishedAt)
+                .statusCode(HttpStatus.OK.value())
+                .build();
+
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            ByteArrayOutputStream gzippedBody = new ByteArrayOutputStream(body.length / 4 + 64);
+
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzippedBody)) {
+                gzipOutputStream.write(body);
+            }
+
+            String eTag = eTag(data);
+
+            // the compressed bytes are a different representation, so they get their own strong tag
+            return new RenderedResponse(body, gzippedBody.toByteArray(), "\"" + eTag + "\"", "\"" + eTag + "-gzip\"");
+        }
+
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException("The pizza catalog could not be serialized", e);
+        }
+
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // hashes the data without the publish timestamp, so a rebuild with the same content keeps the tag clients hold
+    private String eTag(Map<String, Object> data) throws JsonProcessingException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(data));
+
+            return HexFormat.of().formatHex(digest, 0, 16);
+        }
+
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,80 @@
+package org.moldidev.moldispizza.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.moldidev.moldispizza.dto.CacheStatisticsDTO;
+import org.moldidev.moldispizza.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, User> cache;
+    private final LongAdder invalidationCount = new LongAdder();
+
+    public UserDetailsCache(@Value("${security.user-details-cache.maximum-size}") long maximumSize,
+                            @Value("${security.user-details-cache.time-to-live-minutes}") long timeToLiveMinutes) {
+        this.cache = Caffeine
+                .newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(timeToLiveMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public User get(String username, Function<String, User> loader) {
+        return cache.get(normalize(username), key -> loader.apply(username));
+    }
+
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+
+        String key = normalize(username);
+
+        invalidate(key);
+
+        // evict again once the change is visible, so a concurrent lookup cannot re-cache the old row
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(key);
+                }
+            });
+        }
+    }
+
+    public CacheStatisticsDTO getStatistics() {
+        CacheStats stats = cache.stats();
+
+        return new CacheStatisticsDTO(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                invalidationCount.sum(),
+                cache.estimatedSize()
+        );
+    }
+
+    private void invalidate(String key) {
+        if (cache.asMap().remove(key) != null) {
+            invalidationCount.increment();
+        }
+    }
+
+    private String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
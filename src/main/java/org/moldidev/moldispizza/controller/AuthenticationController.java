@@ -2,14 +2,19 @@ package org.moldidev.moldispizza.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.moldidev.moldispizza.dto.UserDTO;
+import org.moldidev.moldispizza.request.customer.UserRefreshTokenRequest;
 import org.moldidev.moldispizza.request.customer.UserSignInRequest;
+import org.moldidev.moldispizza.request.customer.UserSignOutRequest;
 import org.moldidev.moldispizza.request.customer.UserSignUpRequest;
 import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.service.RefreshTokenService;
+import org.moldidev.moldispizza.service.TokenRevocationService;
 import org.moldidev.moldispizza.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,6 +28,8 @@ import java.util.Map;
 public class AuthenticationController {
 
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/sign-up")
     public ResponseEntity<HTTPResponse> signUp(@RequestBody UserSignUpRequest request) {
@@ -55,4 +62,35 @@ public class AuthenticationController {
                         .build()
         );
     }
+
+    @PostMapping("/refresh-token")
+    public ResponseEntity<HTTPResponse> refreshToken(@RequestBody UserRefreshTokenRequest request) {
+        Map<String, String> tokens = refreshTokenService.rotate(request);
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .timestamp(LocalDateTime.now().toString())
+                        .message("Tokens refreshed successfully")
+                        .status(HttpStatus.OK)
+                        .statusCode(HttpStatus.OK.value())
+                        .data(tokens)
+                        .build()
+        );
+    }
+
+    @PostMapping("/sign-out")
+    public ResponseEntity<HTTPResponse> signOut(@RequestHeader(value = "Authorization", required = false) String authorizationHeader, @RequestBody(required = false) UserSignOutRequest request) {
+        tokenRevocationService.signOut(authorizationHeader, request);
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .timestamp(LocalDateTime.now().toString())
+                        .message("Signed out successfully")
+                        .status(HttpStatus.OK)
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
 }
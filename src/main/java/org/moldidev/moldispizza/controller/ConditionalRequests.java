@@ -0,0 +1,33 @@
+package org.moldidev.moldispizza.controller;
+
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    // on a match spring has already set the 304 status and the validators, the handler returns without a body
+    // a request without validators can never be answered with 304, so the version is only looked up when one is sent
+    // and the full response then carries no validators, a client that revalidates sends one from its first request on
+    static boolean isNotModified(Supplier<ResourceVersionDTO> versionLoader, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) == null && webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) == null) {
+            return false;
+        }
+
+        ResourceVersionDTO version = versionLoader.get();
+
+        if (version == null) {
+            return false;
+        }
+
+        // a version taken from the catalog snapshot only has a tag
+        return version.lastModified() != null
+                ? webRequest.checkNotModified(version.eTag(), version.lastModified().toEpochMilli())
+                : webRequest.checkNotModified(version.eTag());
+    }
+}
@@ -0,0 +1,41 @@
+package org.moldidev.moldispizza.controller;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
+import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.service.DeletionJobRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@SecurityRequirement(name = "bearerAuth")
+@RestController
+@RequestMapping("/api/v1/deletion-jobs")
+@RequiredArgsConstructor
+public class DeletionJobController {
+
+    private final DeletionJobRunner deletionJobRunner;
+
+    @GetMapping("/id={id}")
+    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") UUID jobId) {
+        DeletionJobDTO result = deletionJobRunner.findById(jobId);
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .data(Map.of("deletionJobDTO", result))
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+}
@@ -2,14 +2,22 @@ package org.moldidev.moldispizza.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.dto.ImageContentDTO;
 import org.moldidev.moldispizza.dto.ImageDTO;
 import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.response.MultipartMixedResource;
 import org.moldidev.moldispizza.service.ImageService;
-import org.springframework.data.domain.Page;
+import org.moldidev.moldispizza.service.PizzaService;
+import org.moldidev.moldispizza.storage.ImageTypes;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.net.URI;
@@ -17,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @SecurityRequirement(name = "bearerAuth")
 @RestController
@@ -25,10 +34,14 @@ import java.util.Optional;
 public class ImageController {
 
     private final ImageService imageService;
+    private final PizzaService pizzaService;
 
     @GetMapping
-    public ResponseEntity<HTTPResponse> findAll(@RequestParam("page") Optional<Integer> page, @RequestParam("size") Optional<Integer> size) {
-        Page<ImageDTO> result = imageService.findAll(page.orElse(0), page.orElse(10));
+    public ResponseEntity<HTTPResponse> findAll(@RequestParam("page") Optional<Integer> page, @RequestParam("size") Optional<Integer> size, @RequestParam("cursor") Optional<String> cursor) {
+        // a cursor, even an empty one, switches to keyset pages that carry a continuation token instead of a total
+        Object result = cursor.isPresent()
+                ? imageService.findAllAfter(cursor.get(), size.orElse(10))
+                : imageService.findAll(page.orElse(0), page.orElse(10));
 
         return ResponseEntity.ok(
                 HTTPResponse
@@ -42,8 +55,10 @@ public class ImageController {
     }
 
     @GetMapping("/type={type}")
-    public ResponseEntity<HTTPResponse> findAllByType(@PathVariable("type") String type, @RequestParam("page") Optional<Integer> page, @RequestParam("size") Optional<Integer> size) {
-        Page<ImageDTO> result = imageService.findAllByType(type, page.orElse(0), size.orElse(10));
+    public ResponseEntity<HTTPResponse> findAllByType(@PathVariable("type") String type, @RequestParam("page") Optional<Integer> page, @RequestParam("size") Optional<Integer> size, @RequestParam("cursor") Optional<String> cursor) {
+        Object result = cursor.isPresent()
+                ? imageService.findAllByTypeAfter(type, cursor.get(), size.orElse(10))
+                : imageService.findAllByType(type, page.orElse(0), size.orElse(10));
 
         return ResponseEntity.ok(
                 HTTPResponse
@@ -57,10 +72,14 @@ public class ImageController {
     }
 
     @GetMapping("/pizza-id={pizza_id}")
-    public ResponseEntity<HTTPResponse> findAllByPizzaId(@PathVariable("pizza_id") Long pizzaId) {
+    public ResponseEntity<HTTPResponse> findAllByPizzaId(@PathVariable("pizza_id") Long pizzaId, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> pizzaService.findImagesVersionById(pizzaId), webRequest)) {
+            return null;
+        }
+
         List<ImageDTO> result = imageService.findAllByPizzaId(pizzaId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("imagesDTOs", result))
@@ -72,10 +91,14 @@ public class ImageController {
     }
 
     @GetMapping(value = "/id={id}", produces = {MediaType.APPLICATION_JSON_VALUE})
-    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long imageId) {
+    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long imageId, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> imageService.findVersionById(imageId), webRequest)) {
+            return null;
+        }
+
         String result = imageService.findById(imageId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse.builder()
                         .data(Map.of("base64EncodedImage", result))
                         .status(HttpStatus.OK)
@@ -85,6 +108,44 @@ public class ImageController {
         );
     }
 
+    // conditional requests are answered with 304 and range requests with 206 by spring before the body is written
+    @GetMapping("/raw/id={id}")
+    public ResponseEntity<Resource> findContentById(@PathVariable("id") Long imageId, @RequestParam("variant") Optional<String> variant) {
+        ImageContentDTO result = imageService.findContentById(imageId, variant.orElse(null));
+
+        // the signed url expires, so the redirect itself must not be cached
+        if (result.redirectUrl() != null) {
+            return ResponseEntity
+                    .status(HttpStatus.FOUND)
+                    .location(result.redirectUrl())
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+
+        // anything but a raster image is handed out as a download, so it is never rendered from the api origin
+        boolean servable = ImageTypes.isServable(result.type());
+
+        return ResponseEntity
+                .ok()
+                .contentType(servable ? MediaType.parseMediaType(result.type()) : MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, servable ? ContentDisposition.inline().build().toString() : ContentDisposition.attachment().build().toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .eTag(result.eTag())
+                .lastModified(result.lastModified())
+                .cacheControl(result.immutable() ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable() : CacheControl.noCache())
+                .body(result.resource());
+    }
+
+    @GetMapping("/batch/pizza-id={pizza_id}")
+    public ResponseEntity<Resource> findAllContentByPizzaId(@PathVariable("pizza_id") Long pizzaId, @RequestParam("variant") Optional<String> variant) {
+        return multipartResponse(imageService.findAllContentByPizzaId(pizzaId, variant.orElse(null)));
+    }
+
+    @GetMapping("/batch/ids={ids}")
+    public ResponseEntity<Resource> findAllContentByIds(@PathVariable("ids") List<Long> imageIds, @RequestParam("variant") Optional<String> variant) {
+        return multipartResponse(imageService.findAllContentByIds(imageIds, variant.orElse(null)));
+    }
+
     @GetMapping(value = "/url={url}", produces = {MediaType.APPLICATION_JSON_VALUE})
     public ResponseEntity<HTTPResponse> findByUrl(@PathVariable("url") String url) {
         String result = imageService.findByUrl(url);
@@ -100,10 +161,14 @@ public class ImageController {
     }
 
     @GetMapping("/user-id={user_id}")
-    public ResponseEntity<HTTPResponse> findByUserId(@PathVariable("user_id") Long userId) {
+    public ResponseEntity<HTTPResponse> findByUserId(@PathVariable("user_id") Long userId, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> imageService.findVersionByUserId(userId), webRequest)) {
+            return null;
+        }
+
         String result = imageService.findByUserId(userId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse.builder()
                         .data(Map.of("base64EncodedImage", result))
                         .status(HttpStatus.OK)
@@ -143,4 +208,15 @@ public class ImageController {
                         .build()
         );
     }
+
+    // one response carries every image, each part is labelled with its image id in the Content-ID header
+    private ResponseEntity<Resource> multipartResponse(List<ImageContentDTO> contents) {
+        MultipartMixedResource body = new MultipartMixedResource(contents);
+
+        return ResponseEntity
+                .ok()
+                .contentType(new MediaType("multipart", "mixed", Map.of("boundary", body.getBoundary())))
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
 }
@@ -0,0 +1,116 @@
+package org.moldidev.moldispizza.controller;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.cache.ImageContentCache;
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.cache.UserDetailsCache;
+import org.moldidev.moldispizza.dto.CacheStatisticsDTO;
+import org.moldidev.moldispizza.dto.ImageContentCacheStatisticsDTO;
+import org.moldidev.moldispizza.dto.ImageGarbageCollectionReportDTO;
+import org.moldidev.moldispizza.dto.PasswordHashingStatisticsDTO;
+import org.moldidev.moldispizza.dto.PizzaCatalogStatisticsDTO;
+import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.exception.ResourceNotFoundException;
+import org.moldidev.moldispizza.security.BoundedPasswordEncoder;
+import org.moldidev.moldispizza.service.ImageGarbageCollector;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@SecurityRequirement(name = "bearerAuth")
+@RestController
+@RequestMapping("/api/v1/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final UserDetailsCache userDetailsCache;
+    private final BoundedPasswordEncoder boundedPasswordEncoder;
+    private final ImageContentCache imageContentCache;
+    private final ImageGarbageCollector imageGarbageCollector;
+    private final PizzaCatalogCache pizzaCatalogCache;
+
+    @GetMapping("/user-details-cache")
+    public ResponseEntity<HTTPResponse> getUserDetailsCacheStatistics() {
+        CacheStatisticsDTO result = userDetailsCache.getStatistics();
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .data(Map.of("cacheStatisticsDTO", result))
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+
+    @GetMapping("/pizza-catalog")
+    public ResponseEntity<HTTPResponse> getPizzaCatalogStatistics() {
+        PizzaCatalogStatisticsDTO result = pizzaCatalogCache.getStatistics();
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .data(Map.of("pizzaCatalogStatisticsDTO", result))
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+
+    @GetMapping("/password-hashing")
+    public ResponseEntity<HTTPResponse> getPasswordHashingStatistics() {
+        PasswordHashingStatisticsDTO result = boundedPasswordEncoder.getStatistics();
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .data(Map.of("passwordHashingStatisticsDTO", result))
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+
+    @GetMapping("/image-content-cache")
+    public ResponseEntity<HTTPResponse> getImageContentCacheStatistics() {
+        ImageContentCacheStatisticsDTO result = imageContentCache.getStatistics();
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .data(Map.of("imageContentCacheStatisticsDTO", result))
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+
+    @GetMapping("/image-garbage-collection")
+    public ResponseEntity<HTTPResponse> getImageGarbageCollectionReport() {
+        ImageGarbageCollectionReportDTO result = imageGarbageCollector.getLastReport();
+
+        if (result == null) {
+            throw new ResourceNotFoundException("The image garbage collection has not run yet");
+        }
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .data(Map.of("imageGarbageCollectionReportDTO", result))
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+}
@@ -7,7 +7,6 @@ import org.moldidev.moldispizza.request.admin.OrderUpdateAdminRequest;
 import org.moldidev.moldispizza.response.HTTPResponse;
 import org.moldidev.moldispizza.service.OrderService;
 import org.moldidev.moldispizza.service.PaymentService;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -29,8 +28,11 @@ public class OrderController {
     private final PaymentService paymentService;
 
     @GetMapping
-    public ResponseEntity<HTTPResponse> findAll(@RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size) {
-        Page<OrderDTO> result = orderService.findAll(page.orElse(0), size.orElse(10));
+    public ResponseEntity<HTTPResponse> findAll(@RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size, @RequestParam Optional<String> cursor) {
+        // a cursor, even an empty one, switches to keyset pages that carry a continuation token instead of a total
+        Object result = cursor.isPresent()
+                ? orderService.findAllAfter(cursor.get(), size.orElse(10))
+                : orderService.findAll(page.orElse(0), size.orElse(10));
 
         return ResponseEntity.ok(
                 HTTPResponse
@@ -59,8 +61,10 @@ public class OrderController {
     }
 
     @GetMapping("/user-id={user_id}")
-    public ResponseEntity<HTTPResponse> findAllByUserId(@PathVariable("user_id") Long userId, @RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size, Authentication connectedUser) {
-        Page<OrderDTO> result = orderService.findAllByUserId(userId, page.orElse(0), size.orElse(10), connectedUser);
+    public ResponseEntity<HTTPResponse> findAllByUserId(@PathVariable("user_id") Long userId, @RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size, @RequestParam Optional<String> cursor, Authentication connectedUser) {
+        Object result = cursor.isPresent()
+                ? orderService.findAllByUserIdAfter(userId, cursor.get(), size.orElse(10), connectedUser)
+                : orderService.findAllByUserId(userId, page.orElse(0), size.orElse(10), connectedUser);
 
         return ResponseEntity.ok(
                 HTTPResponse
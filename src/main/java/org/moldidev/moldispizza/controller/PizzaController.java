@@ -2,12 +2,16 @@ package org.moldidev.moldispizza.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
 import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.moldidev.moldispizza.dto.TopSellerDTO;
 import org.moldidev.moldispizza.request.admin.PizzaCreateAdminRequest;
 import org.moldidev.moldispizza.request.admin.PizzaUpdateDetailsAdminRequest;
 import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.response.RenderedResponse;
 import org.moldidev.moldispizza.service.PizzaService;
-import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -27,28 +33,34 @@ public class PizzaController {
     private final PizzaService pizzaService;
 
     @GetMapping
-    public ResponseEntity<HTTPResponse> findAll(@RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size) {
-        Page<PizzaDTO> result = pizzaService.findAll(page.orElse(0), size.orElse(10));
+    public ResponseEntity<byte[]> findAll(@RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RenderedResponse result = pizzaService.findAll(page.orElse(0), size.orElse(10));
 
-        return ResponseEntity.ok(
-                HTTPResponse
-                        .builder()
-                        .data(Map.of("pizzasDTOs", result))
-                        .status(HttpStatus.OK)
-                        .timestamp(LocalDateTime.now().toString())
-                        .statusCode(HttpStatus.OK.value())
-                        .build()
-        );
+        return rendered(result, acceptEncoding);
     }
 
     @GetMapping("/id={id}")
-    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long pizzaId) {
-        PizzaDTO result = pizzaService.findById(pizzaId);
+    public ResponseEntity<byte[]> findById(@PathVariable("id") Long pizzaId, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RenderedResponse result = pizzaService.findById(pizzaId);
+
+        return rendered(result, acceptEncoding);
+    }
+
+    @GetMapping("/name={name}")
+    public ResponseEntity<byte[]> findByName(@PathVariable("name") String pizzaName, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RenderedResponse result = pizzaService.findByName(pizzaName);
+
+        return rendered(result, acceptEncoding);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<HTTPResponse> search(@RequestParam("query") String query, @RequestParam("limit") Optional<Integer> limit) {
+        List<PizzaDTO> result = pizzaService.search(query, limit.orElse(10));
 
         return ResponseEntity.ok(
                 HTTPResponse
                         .builder()
-                        .data(Map.of("pizzaDTO", result))
+                        .data(Map.of("pizzasDTOs", result))
                         .status(HttpStatus.OK)
                         .timestamp(LocalDateTime.now().toString())
                         .statusCode(HttpStatus.OK.value())
@@ -56,14 +68,14 @@ public class PizzaController {
         );
     }
 
-    @GetMapping("/name={name}")
-    public ResponseEntity<HTTPResponse> findByName(@PathVariable("name") String pizzaName) {
-        PizzaDTO result = pizzaService.findByName(pizzaName);
+    @GetMapping("/top-sellers")
+    public ResponseEntity<HTTPResponse> findTopSellers(@RequestParam("window") Optional<String> window, @RequestParam("limit") Optional<Integer> limit) {
+        List<TopSellerDTO> result = pizzaService.findTopSellers(window.orElse("day"), limit.orElse(10));
 
         return ResponseEntity.ok(
                 HTTPResponse
                         .builder()
-                        .data(Map.of("pizzaDTO", result))
+                        .data(Map.of("topSellersDTOs", result))
                         .status(HttpStatus.OK)
                         .timestamp(LocalDateTime.now().toString())
                         .statusCode(HttpStatus.OK.value())
@@ -105,16 +117,82 @@ public class PizzaController {
 
     @DeleteMapping("/id={id}")
     public ResponseEntity<HTTPResponse> deleteById(@PathVariable("id") Long pizzaId) {
-        pizzaService.deleteById(pizzaId);
+        DeletionJobDTO result = pizzaService.deleteById(pizzaId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.accepted().body(
                 HTTPResponse
                         .builder()
-                        .message("Pizza deleted successfully")
-                        .status(HttpStatus.OK)
+                        .message("Pizza deletion started")
+                        .data(Map.of("deletionJobDTO", result))
+                        .status(HttpStatus.ACCEPTED)
                         .timestamp(LocalDateTime.now().toString())
-                        .statusCode(HttpStatus.OK.value())
+                        .statusCode(HttpStatus.ACCEPTED.value())
                         .build()
         );
     }
+
+    // the catalog is serialized once per version, the bytes are written as they are
+    // a matching If-None-Match is answered with 304 by spring before any bytes are written
+    private ResponseEntity<byte[]> rendered(RenderedResponse result, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip(acceptEncoding)) {
+            return response
+                    .eTag(result.gzippedETag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(result.gzippedBody());
+        }
+
+        return response
+                .eTag(result.eTag())
+                .body(result.body());
+    }
+
+    // an explicit gzip entry wins over the wildcard, a quality of zero refuses the coding
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parameters = entry.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+
+            for (int index = 1; index < parameters.length; index++) {
+                String parameter = parameters[index].trim().toLowerCase(Locale.ROOT);
+
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    }
+
+                    catch (NumberFormatException e) {
+                        quality = 0.0;
+                    }
+                }
+            }
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            }
+
+            else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
 }
@@ -7,11 +7,12 @@ import org.moldidev.moldispizza.request.admin.ReviewUpdateAdminRequest;
 import org.moldidev.moldispizza.request.customer.UserCreateReviewRequest;
 import org.moldidev.moldispizza.response.HTTPResponse;
 import org.moldidev.moldispizza.service.ReviewService;
-import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.time.LocalDateTime;
@@ -27,10 +28,17 @@ public class ReviewController {
     private final ReviewService reviewService;
 
     @GetMapping
-    public ResponseEntity<HTTPResponse> findAll(@RequestParam("page") Optional<Integer> page, Optional<Integer> size) {
-        Page<ReviewDTO> result = reviewService.findAll(page.orElse(0), size.orElse(10));
+    public ResponseEntity<HTTPResponse> findAll(@RequestParam("page") Optional<Integer> page, Optional<Integer> size, @RequestParam("cursor") Optional<String> cursor, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> reviewService.findVersionOfAll(), webRequest)) {
+            return null;
+        }
 
-        return ResponseEntity.ok(
+        // a cursor, even an empty one, switches to keyset pages that carry a continuation token instead of a total
+        Object result = cursor.isPresent()
+                ? reviewService.findAllAfter(cursor.get(), size.orElse(10))
+                : reviewService.findAll(page.orElse(0), size.orElse(10));
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("reviewsDTOs", result))
@@ -42,10 +50,16 @@ public class ReviewController {
     }
 
     @GetMapping("/user-id={user_id}")
-    public ResponseEntity<HTTPResponse> findAllByUserId(@PathVariable("user_id") Long userId, @RequestParam("page") Optional<Integer> page, Optional<Integer> size) {
-        Page<ReviewDTO> result = reviewService.findAllByUserId(userId, page.orElse(0), size.orElse(10));
+    public ResponseEntity<HTTPResponse> findAllByUserId(@PathVariable("user_id") Long userId, @RequestParam("page") Optional<Integer> page, Optional<Integer> size, @RequestParam("cursor") Optional<String> cursor, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> reviewService.findVersionOfAllByUserId(userId), webRequest)) {
+            return null;
+        }
 
-        return ResponseEntity.ok(
+        Object result = cursor.isPresent()
+                ? reviewService.findAllByUserIdAfter(userId, cursor.get(), size.orElse(10))
+                : reviewService.findAllByUserId(userId, page.orElse(0), size.orElse(10));
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("reviewsDTOs", result))
@@ -57,10 +71,16 @@ public class ReviewController {
     }
 
     @GetMapping("/pizza-id={pizza_id}")
-    public ResponseEntity<HTTPResponse> findAllByPizzaId(@PathVariable("pizza_id") Long pizzaId, Optional<Integer> page, Optional<Integer> size) {
-        Page<ReviewDTO> result = reviewService.findAllByPizzaId(pizzaId, page.orElse(0), size.orElse(10));
+    public ResponseEntity<HTTPResponse> findAllByPizzaId(@PathVariable("pizza_id") Long pizzaId, Optional<Integer> page, Optional<Integer> size, @RequestParam("cursor") Optional<String> cursor, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> reviewService.findVersionOfAllByPizzaId(pizzaId), webRequest)) {
+            return null;
+        }
 
-        return ResponseEntity.ok(
+        Object result = cursor.isPresent()
+                ? reviewService.findAllByPizzaIdAfter(pizzaId, cursor.get(), size.orElse(10))
+                : reviewService.findAllByPizzaId(pizzaId, page.orElse(0), size.orElse(10));
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("reviewsDTOs", result))
@@ -72,10 +92,14 @@ public class ReviewController {
     }
 
     @GetMapping("/id={id}")
-    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long reviewId) {
+    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long reviewId, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> reviewService.findVersionById(reviewId), webRequest)) {
+            return null;
+        }
+
         ReviewDTO result = reviewService.findById(reviewId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("reviewDTO", result))
@@ -2,18 +2,21 @@ package org.moldidev.moldispizza.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
 import org.moldidev.moldispizza.dto.UserDTO;
 import org.moldidev.moldispizza.enumeration.Provider;
 import org.moldidev.moldispizza.request.admin.UserCreateAdminRequest;
 import org.moldidev.moldispizza.request.admin.UserDetailsUpdateAdminRequest;
 import org.moldidev.moldispizza.request.customer.*;
 import org.moldidev.moldispizza.response.HTTPResponse;
+import org.moldidev.moldispizza.service.TokenRevocationService;
 import org.moldidev.moldispizza.service.UserService;
-import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -26,10 +29,14 @@ import java.util.Optional;
 public class UserController {
 
     private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
 
     @GetMapping
-    public ResponseEntity<HTTPResponse> findAll(@RequestParam("page") Optional<Integer> page, @RequestParam("size") Optional<Integer> size) {
-        Page<UserDTO> result = userService.findAll(page.orElse(0), size.orElse(10));
+    public ResponseEntity<HTTPResponse> findAll(@RequestParam("page") Optional<Integer> page, @RequestParam("size") Optional<Integer> size, @RequestParam("cursor") Optional<String> cursor) {
+        // a cursor, even an empty one, switches to keyset pages that carry a continuation token instead of a total
+        Object result = cursor.isPresent()
+                ? userService.findAllAfter(cursor.get(), size.orElse(10))
+                : userService.findAll(page.orElse(0), size.orElse(10));
 
         return ResponseEntity.ok(
                HTTPResponse
@@ -43,10 +50,14 @@ public class UserController {
     }
 
     @GetMapping("/id={id}")
-    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long userId) {
+    public ResponseEntity<HTTPResponse> findById(@PathVariable("id") Long userId, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> userService.findVersionById(userId), webRequest)) {
+            return null;
+        }
+
         UserDTO result = userService.findById(userId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("userDTO", result))
@@ -58,10 +69,14 @@ public class UserController {
     }
 
     @GetMapping("/username={username}")
-    public ResponseEntity<HTTPResponse> findByUsername(@PathVariable("username") String username, Authentication connectedUser) {
+    public ResponseEntity<HTTPResponse> findByUsername(@PathVariable("username") String username, Authentication connectedUser, WebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(() -> userService.findVersionByUsername(username, connectedUser), webRequest)) {
+            return null;
+        }
+
         UserDTO result = userService.findByUsername(username, connectedUser);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(
                 HTTPResponse
                         .builder()
                         .data(Map.of("userDTO", result))
@@ -257,6 +272,21 @@ public class UserController {
         );
     }
 
+    @PostMapping("/revoke-tokens/id={id}")
+    public ResponseEntity<HTTPResponse> revokeTokensById(@PathVariable("id") Long userId, Authentication connectedUser) {
+        tokenRevocationService.revokeAllByUserId(userId, connectedUser);
+
+        return ResponseEntity.ok(
+                HTTPResponse
+                        .builder()
+                        .message("All the sessions of this account have been signed out")
+                        .status(HttpStatus.OK)
+                        .timestamp(LocalDateTime.now().toString())
+                        .statusCode(HttpStatus.OK.value())
+                        .build()
+        );
+    }
+
     @PatchMapping("/id={id}")
     public ResponseEntity<HTTPResponse> updateById(@PathVariable("id") Long userId, @RequestBody UserDetailsUpdateRequest request, Authentication connectedUser) {
         UserDTO result = userService.updateById(userId, request, connectedUser);
@@ -323,15 +353,16 @@ public class UserController {
 
     @DeleteMapping("/id={id}")
     public ResponseEntity<HTTPResponse> deleteById(@PathVariable("id") Long userId) {
-        userService.deleteById(userId);
+        DeletionJobDTO result = userService.deleteById(userId);
 
-        return ResponseEntity.ok(
+        return ResponseEntity.accepted().body(
                 HTTPResponse
                         .builder()
-                        .message("User deleted successfully")
-                        .status(HttpStatus.OK)
+                        .message("User deletion started")
+                        .data(Map.of("deletionJobDTO", result))
+                        .status(HttpStatus.ACCEPTED)
                         .timestamp(LocalDateTime.now().toString())
-                        .statusCode(HttpStatus.OK.value())
+                        .statusCode(HttpStatus.ACCEPTED.value())
                         .build()
         );
     }
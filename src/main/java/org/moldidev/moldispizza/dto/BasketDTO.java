@@ -5,5 +5,5 @@ import java.util.List;
 public record BasketDTO(Long basketId,
                         UserDTO user,
                         Double totalPrice,
-                        List<PizzaDTO> pizzas) {
+                        List<BasketItemDTO> items) {
 }
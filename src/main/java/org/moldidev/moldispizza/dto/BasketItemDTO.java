@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.dto;
+
+public record BasketItemDTO(Long pizzaId,
+                            String name,
+                            Integer quantity,
+                            Double unitPrice) {
+}
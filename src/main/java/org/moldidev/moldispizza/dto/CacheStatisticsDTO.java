@@ -0,0 +1,9 @@
+package org.moldidev.moldispizza.dto;
+
+public record CacheStatisticsDTO(Long hitCount,
+                                 Long missCount,
+                                 Double hitRate,
+                                 Long evictionCount,
+                                 Long invalidationCount,
+                                 Long estimatedSize) {
+}
@@ -0,0 +1,21 @@
+package org.moldidev.moldispizza.dto;
+
+import org.moldidev.moldispizza.enumeration.DeletionJobStatus;
+import org.moldidev.moldispizza.enumeration.DeletionJobStep;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record DeletionJobDTO(UUID jobId,
+                             DeletionTarget target,
+                             Long targetId,
+                             DeletionJobStatus status,
+                             DeletionJobStep step,
+                             Long deletedReviews,
+                             Long deletedOrders,
+                             Long updatedBaskets,
+                             String error,
+                             LocalDateTime createdDate,
+                             LocalDateTime completedDate) {
+}
@@ -0,0 +1,11 @@
+package org.moldidev.moldispizza.dto;
+
+public record ImageContentCacheStatisticsDTO(Long hitCount,
+                                             Long missCount,
+                                             Double hitRate,
+                                             Long evictionCount,
+                                             Long invalidationCount,
+                                             Long entryCount,
+                                             Long residentBytes,
+                                             Long maximumBytes) {
+}
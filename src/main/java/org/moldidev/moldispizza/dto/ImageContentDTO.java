@@ -0,0 +1,16 @@
+package org.moldidev.moldispizza.dto;
+
+import org.springframework.core.io.Resource;
+
+import java.net.URI;
+import java.time.Instant;
+
+public record ImageContentDTO(Long imageId,
+                              Resource resource,
+                              String type,
+                              Long size,
+                              String eTag,
+                              Instant lastModified,
+                              URI redirectUrl,
+                              boolean immutable) {
+}
@@ -1,6 +1,10 @@
 package org.moldidev.moldispizza.dto;
 
+import java.util.List;
+
 public record ImageDTO(Long imageId,
                        String url,
-                       String type) {
+                       String type,
+                       String contentHash,
+                       List<ImageVariantDTO> variants) {
 }
@@ -0,0 +1,14 @@
+package org.moldidev.moldispizza.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ImageGarbageCollectionReportDTO(LocalDateTime startedAt,
+                                              LocalDateTime finishedAt,
+                                              Long scannedObjects,
+                                              Long scannedRows,
+                                              Long deletedOrphans,
+                                              Long pendingOrphans,
+                                              Long danglingRows,
+                                              List<String> danglingKeys) {
+}
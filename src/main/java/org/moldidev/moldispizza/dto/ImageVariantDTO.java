@@ -0,0 +1,8 @@
+package org.moldidev.moldispizza.dto;
+
+public record ImageVariantDTO(String name,
+                              String type,
+                              Integer width,
+                              Integer height,
+                              Long sizeInBytes) {
+}
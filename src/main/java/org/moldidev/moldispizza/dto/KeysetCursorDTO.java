@@ -0,0 +1,77 @@
+package org.moldidev.moldispizza.dto;
+
+import org.moldidev.moldispizza.exception.ObjectNotValidException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+
+public record KeysetCursorDTO(LocalDateTime createdDate,
+                              String id) {
+
+    private static final int MAXIMUM_SIZE = 100;
+
+    // every audited row was created after the epoch, so a blank cursor starts at the beginning
+    private static final KeysetCursorDTO FIRST = new KeysetCursorDTO(LocalDateTime.of(1970, 1, 1, 0, 0), null);
+
+    public static KeysetCursorDTO decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 2);
+            return new KeysetCursorDTO(LocalDateTime.parse(parts[0]), parts[1]);
+        }
+
+        catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw invalid();
+        }
+    }
+
+    public static KeysetCursorDTO of(LocalDateTime createdDate, Object id) {
+        return new KeysetCursorDTO(createdDate, id.toString());
+    }
+
+    // one extra row is read to tell whether another page follows, so no count query is needed
+    public static Pageable limit(int size) {
+        if (size < 1 || size > MAXIMUM_SIZE) {
+            throw new ObjectNotValidException(Set.of("Between 1 and " + MAXIMUM_SIZE + " elements can be requested at once"));
+        }
+
+        return PageRequest.of(0, size + 1);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((createdDate + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long longId() {
+        try {
+            return id != null ? Long.valueOf(id) : 0L;
+        }
+
+        catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    public UUID uuidId() {
+        try {
+            return id != null ? UUID.fromString(id) : new UUID(0L, 0L);
+        }
+
+        catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private static ObjectNotValidException invalid() {
+        return new ObjectNotValidException(Set.of("The provided cursor is not valid"));
+    }
+}
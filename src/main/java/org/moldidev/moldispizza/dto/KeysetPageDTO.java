@@ -0,0 +1,27 @@
+package org.moldidev.moldispizza.dto;
+
+import org.moldidev.moldispizza.entity.Auditable;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record KeysetPageDTO<T>(List<T> content,
+                               Integer size,
+                               String nextCursor) {
+
+    // the rows were read with one extra element, it only signals that another page follows
+    public static <E extends Auditable, T> KeysetPageDTO<T> of(List<E> rows, int size, Function<E, ?> id, Function<E, T> mapper) {
+        if (rows.size() <= size) {
+            return new KeysetPageDTO<>(rows.stream().map(mapper).toList(), size, null);
+        }
+
+        List<E> content = rows.subList(0, size);
+        E last = content.get(size - 1);
+
+        return new KeysetPageDTO<>(
+                content.stream().map(mapper).toList(),
+                size,
+                KeysetCursorDTO.of(last.getCreatedDate(), id.apply(last)).encode()
+        );
+    }
+}
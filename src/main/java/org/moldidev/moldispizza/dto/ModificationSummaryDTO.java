@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.dto;
+
+import java.time.LocalDateTime;
+
+public record ModificationSummaryDTO(Long count,
+                                     LocalDateTime lastModifiedDate) {
+}
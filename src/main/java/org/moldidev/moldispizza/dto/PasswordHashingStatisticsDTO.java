@@ -0,0 +1,12 @@
+package org.moldidev.moldispizza.dto;
+
+public record PasswordHashingStatisticsDTO(Long hashCount,
+                                           Double averageHashMillis,
+                                           Long verifyCount,
+                                           Double averageVerifyMillis,
+                                           Long rejectedCount,
+                                           Integer poolSize,
+                                           Integer activeCount,
+                                           Integer queuedCount,
+                                           Integer queueCapacity) {
+}
@@ -0,0 +1,16 @@
+package org.moldidev.moldispizza.dto;
+
+import java.util.Map;
+
+public record PizzaCatalogStatisticsDTO(Long version,
+                                        Long hitCount,
+                                        Long staleHitCount,
+                                        Long missCount,
+                                        Double hitRate,
+                                        Long invalidationCount,
+                                        Long fullRebuildCount,
+                                        Long partialRebuildCount,
+                                        Long pizzaCount,
+                                        Long renderedPageCount,
+                                        Map<String, CacheStatisticsDTO> lookups) {
+}
@@ -6,5 +6,6 @@ public record PizzaDTO(Long pizzaId,
                        String name,
                        List<ImageDTO> images,
                        String ingredients,
-                       Double price) {
+                       Double price,
+                       PizzaRatingDTO rating) {
 }
@@ -0,0 +1,9 @@
+package org.moldidev.moldispizza.dto;
+
+import java.util.List;
+
+// the histogram holds the number of 1 to 5 star reviews, in that order
+public record PizzaRatingDTO(Long count,
+                             Double average,
+                             List<Long> histogram) {
+}
@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.dto;
+
+import java.time.LocalDateTime;
+
+public record PizzaSaleDTO(Long pizzaId,
+                           LocalDateTime placedDate) {
+}
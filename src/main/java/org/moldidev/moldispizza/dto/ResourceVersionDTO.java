@@ -0,0 +1,25 @@
+package org.moldidev.moldispizza.dto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+public record ResourceVersionDTO(String eTag,
+                                 Instant lastModified) {
+
+    // the row count catches deletions, the latest modification date catches inserts and updates
+    public static ResourceVersionDTO from(String name, ModificationSummaryDTO summary) {
+        if (summary == null || summary.count() == null || summary.count() == 0 || summary.lastModifiedDate() == null) {
+            return null;
+        }
+
+        LocalDateTime lastModifiedDate = summary.lastModifiedDate();
+        long lastModifiedMicroseconds = ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), lastModifiedDate);
+
+        return new ResourceVersionDTO(
+                "\"" + name + "-" + Long.toHexString(summary.count()) + "-" + Long.toHexString(lastModifiedMicroseconds) + "\"",
+                lastModifiedDate.atZone(ZoneId.systemDefault()).toInstant()
+        );
+    }
+}
@@ -0,0 +1,5 @@
+package org.moldidev.moldispizza.dto;
+
+public record TopSellerDTO(PizzaDTO pizza,
+                           Long units) {
+}
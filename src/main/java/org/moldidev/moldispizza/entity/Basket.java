@@ -27,6 +27,9 @@ public class Basket extends Auditable {
     @NotNull(message = "The total price is required")
     private Double totalPrice;
 
-    @ManyToMany(fetch = FetchType.LAZY)
-    private List<Pizza> pizzas;
+    // read only, the items are only written through the basket repository
+    @OneToMany(fetch = FetchType.LAZY)
+    @JoinColumn(name = "basket_id", referencedColumnName = "basket_id", insertable = false, updatable = false)
+    @OrderBy("basketItemId")
+    private List<BasketItem> items;
 }
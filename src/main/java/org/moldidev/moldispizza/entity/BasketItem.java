@@ -0,0 +1,43 @@
+package org.moldidev.moldispizza.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+// one row per pizza in a basket, the rows are written by the basket repository upserts
+@Table(name = "basket_items", uniqueConstraints = {
+        @UniqueConstraint(name = "basket_items_basket_id_pizza_id_unique", columnNames = {"basket_id", "pizzaId"})
+}, indexes = {
+        @Index(name = "basket_items_pizza_id_index", columnList = "pizzaId")
+})
+@Entity
+@Data
+public class BasketItem extends Auditable {
+
+    @Column(name = "basket_item_id", updatable = false)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long basketItemId;
+
+    @Column(name = "basket_id", nullable = false, updatable = false)
+    @NotNull(message = "The basket is required")
+    private Long basketId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pizzaId", referencedColumnName = "pizza_id", nullable = false, updatable = false)
+    @NotNull(message = "The pizza is required")
+    private Pizza pizza;
+
+    @Column(name = "quantity")
+    @Min(value = 1, message = "The quantity must be at least 1")
+    @NotNull(message = "The quantity is required")
+    private Integer quantity;
+
+    // the price the pizza had when it was first added, later copies are charged the same
+    @Column(name = "unit_price")
+    @DecimalMin(value = "0.0", message = "The unit price must be positive")
+    @NotNull(message = "The unit price is required")
+    private Double unitPrice;
+}
@@ -0,0 +1,54 @@
+package org.moldidev.moldispizza.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.moldidev.moldispizza.enumeration.DeletionJobStatus;
+import org.moldidev.moldispizza.enumeration.DeletionJobStep;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// progress is written in the same transaction as each chunk, so a restarted job continues where it stopped
+@Table(name = "deletion_jobs", indexes = {
+        @Index(name = "deletion_jobs_target_target_id_status_index", columnList = "target, target_id, status")
+})
+@Entity
+@Data
+public class DeletionJob extends Auditable {
+
+    @Column(name = "job_id", updatable = false)
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID jobId;
+
+    @Column(name = "target", nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private DeletionTarget target;
+
+    @Column(name = "target_id", nullable = false, updatable = false)
+    private Long targetId;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DeletionJobStatus status;
+
+    @Column(name = "step", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DeletionJobStep step;
+
+    @Column(name = "deleted_reviews", nullable = false)
+    private Long deletedReviews = 0L;
+
+    @Column(name = "deleted_orders", nullable = false)
+    private Long deletedOrders = 0L;
+
+    @Column(name = "updated_baskets", nullable = false)
+    private Long updatedBaskets = 0L;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "completed_date")
+    private LocalDateTime completedDate;
+}
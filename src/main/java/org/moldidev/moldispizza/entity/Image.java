@@ -2,15 +2,24 @@ package org.moldidev.moldispizza.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
-@Table(name = "images")
+import java.util.ArrayList;
+import java.util.List;
+
+@Table(name = "images", indexes = {
+        @Index(name = "images_created_date_image_id_index", columnList = "createdDate, image_id"),
+        @Index(name = "images_type_created_date_image_id_index", columnList = "type, createdDate, image_id")
+})
 @Entity
 @Data
 public class Image extends Auditable {
 
     @Column(name = "image_id", updatable = false)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "images_sequence")
+    @SequenceGenerator(name = "images_sequence", sequenceName = "images_sequence", allocationSize = 50)
     private Long imageId;
 
     @Column(name = "url", unique = true)
@@ -18,4 +27,13 @@ public class Image extends Auditable {
 
     @Column(name = "type")
     private String type;
+
+    @Column(name = "content_hash", unique = true, length = 64)
+    private String contentHash;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "images_variants", joinColumns = @JoinColumn(name = "image_id"))
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<ImageVariant> variants = new ArrayList<>();
 }
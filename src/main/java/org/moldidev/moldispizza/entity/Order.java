@@ -10,7 +10,10 @@ import org.moldidev.moldispizza.enumeration.OrderStatus;
 import java.util.List;
 import java.util.UUID;
 
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "orders_created_date_order_id_index", columnList = "createdDate, order_id"),
+        @Index(name = "orders_user_id_created_date_order_id_index", columnList = "userId, createdDate, order_id")
+})
 @Entity
 @Data
 public class Order extends Auditable {
@@ -25,7 +25,13 @@ public class Pizza extends Auditable {
     @NotBlank(message = "The pizza's name is required")
     private String name;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "pizzas_images",
+            joinColumns = @JoinColumn(name = "pizza_pizza_id"),
+            inverseJoinColumns = @JoinColumn(name = "images_image_id"),
+            indexes = @Index(name = "pizzas_images_images_image_id_index", columnList = "images_image_id")
+    )
     private List<Image> images;
 
     @Column(name = "ingredients")
@@ -35,4 +41,7 @@ public class Pizza extends Auditable {
     @DecimalMin(value = "0.0", inclusive = false, message = "The pizza's price must be positive")
     @NotNull(message = "The price is required")
     private Double price;
+
+    @Embedded
+    private PizzaRating rating = new PizzaRating();
 }
@@ -0,0 +1,48 @@
+package org.moldidev.moldispizza.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+// maintained by atomic updates in the review transactions, the entity itself never writes these columns
+@Embeddable
+@Data
+public class PizzaRating {
+
+    @Column(name = "rating_count", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long count = 0L;
+
+    @Column(name = "rating_sum", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long sum = 0L;
+
+    @Column(name = "rating_one_count", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long oneStarCount = 0L;
+
+    @Column(name = "rating_two_count", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long twoStarCount = 0L;
+
+    @Column(name = "rating_three_count", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long threeStarCount = 0L;
+
+    @Column(name = "rating_four_count", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long fourStarCount = 0L;
+
+    @Column(name = "rating_five_count", insertable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private Long fiveStarCount = 0L;
+
+    // mirrors the database update on the loaded pizza, 0 stands for no rating on either side
+    public void move(int removedRating, int addedRating) {
+        count += Integer.signum(addedRating) - Integer.signum(removedRating);
+        sum += addedRating - removedRating;
+
+        oneStarCount += delta(1, removedRating, addedRating);
+        twoStarCount += delta(2, removedRating, addedRating);
+        threeStarCount += delta(3, removedRating, addedRating);
+        fourStarCount += delta(4, removedRating, addedRating);
+        fiveStarCount += delta(5, removedRating, addedRating);
+    }
+
+    private static int delta(int rating, int removedRating, int addedRating) {
+        return (addedRating == rating ? 1 : 0) - (removedRating == rating ? 1 : 0);
+    }
+}
@@ -0,0 +1,34 @@
+package org.moldidev.moldispizza.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// units sold per pizza in one minute or one hour, shared by every instance and written by the order transactions themselves
+@Table(name = "pizza_sales_window_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "pizza_sales_window_buckets_bucket_unique", columnNames = {"pizza_id", "bucket_start", "bucket_minutes"})
+}, indexes = {
+        @Index(name = "pizza_sales_window_buckets_bucket_start_index", columnList = "bucket_start")
+})
+@Entity
+@Data
+public class PizzaSalesBucket extends Auditable {
+
+    @Column(name = "bucket_id", updatable = false)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long bucketId;
+
+    @Column(name = "pizza_id", nullable = false)
+    private Long pizzaId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "bucket_minutes", nullable = false)
+    private Integer bucketMinutes;
+
+    @Column(name = "units", nullable = false)
+    private Long units;
+}
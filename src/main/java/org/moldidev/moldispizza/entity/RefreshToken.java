@@ -0,0 +1,36 @@
+package org.moldidev.moldispizza.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table(name = "refresh_tokens")
+@Entity
+@Data
+public class RefreshToken extends Auditable {
+
+    @Column(name = "refresh_token_id", updatable = false)
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID refreshTokenId;
+
+    @Column(name = "family_id", updatable = false, nullable = false)
+    private UUID familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "userId", referencedColumnName = "user_id", nullable = false)
+    @NotNull(message = "The user is required")
+    private User user;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "is_used")
+    private Boolean isUsed;
+
+    @Column(name = "is_revoked")
+    private Boolean isRevoked;
+}
@@ -6,7 +6,11 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "reviews_created_date_review_id_index", columnList = "createdDate, review_id"),
+        @Index(name = "reviews_user_id_created_date_review_id_index", columnList = "userId, createdDate, review_id"),
+        @Index(name = "reviews_pizza_id_created_date_review_id_index", columnList = "pizzaId, createdDate, review_id")
+})
 @Entity
 @Data
 public class Review extends Auditable {
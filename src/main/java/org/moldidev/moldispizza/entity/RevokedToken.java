@@ -0,0 +1,25 @@
+package org.moldidev.moldispizza.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Table(name = "revoked_tokens")
+@Entity
+@Data
+public class RevokedToken extends Auditable {
+
+    @Column(name = "token_id", updatable = false)
+    @Id
+    private String tokenId;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -3,16 +3,21 @@ package org.moldidev.moldispizza.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 import org.moldidev.moldispizza.enumeration.Provider;
 import org.moldidev.moldispizza.enumeration.Role;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "users_image_id_index", columnList = "imageId"),
+        @Index(name = "users_created_date_user_id_index", columnList = "createdDate, user_id")
+})
 @Entity
 @Data
 public class User extends Auditable implements UserDetails {
@@ -29,7 +34,7 @@ public class User extends Auditable implements UserDetails {
     @Size(min = 10, max = 100, message = "The username must contain at least 10 characters and at most 100 characters")
     private String username;
 
-    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "imageId", referencedColumnName = "image_id")
     private Image image;
 
@@ -86,6 +91,13 @@ public class User extends Auditable implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Provider provider;
 
+    @Column(name = "security_version", nullable = false)
+    @ColumnDefault("0")
+    private Long securityVersion = 0L;
+
+    @Column(name = "tokens_revoked_at")
+    private LocalDateTime tokensRevokedAt;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
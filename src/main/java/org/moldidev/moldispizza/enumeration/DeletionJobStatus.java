@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.enumeration;
+
+public enum DeletionJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED,
+}
@@ -0,0 +1,9 @@
+package org.moldidev.moldispizza.enumeration;
+
+// the rows that reference the target go first, in this order, the target itself goes last
+public enum DeletionJobStep {
+    REVIEWS,
+    ORDERS,
+    BASKETS,
+    TARGET,
+}
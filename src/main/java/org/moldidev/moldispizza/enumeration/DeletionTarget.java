@@ -0,0 +1,6 @@
+package org.moldidev.moldispizza.enumeration;
+
+public enum DeletionTarget {
+    PIZZA,
+    USER,
+}
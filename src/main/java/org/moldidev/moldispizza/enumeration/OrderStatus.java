@@ -3,5 +3,10 @@ package org.moldidev.moldispizza.enumeration;
 public enum OrderStatus {
     PENDING,
     PAID,
-    DELIVERED,
+    DELIVERED;
+
+    // a pending order may never be paid, so it does not count as a sale yet
+    public boolean isSold() {
+        return this == PAID || this == DELIVERED;
+    }
 }
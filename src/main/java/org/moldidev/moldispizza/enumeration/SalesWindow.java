@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.enumeration;
+
+public enum SalesWindow {
+    HOUR,
+    DAY,
+    WEEK,
+}
@@ -3,6 +3,7 @@ package org.moldidev.moldispizza.exception;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import org.moldidev.moldispizza.response.HTTPResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.MailAuthenticationException;
@@ -65,6 +66,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, response.getStatus());
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<HTTPResponse> handleServiceUnavailableException(ServiceUnavailableException exception, WebRequest request) {
+        HTTPResponse response = HTTPResponse
+                .builder()
+                .timestamp(LocalDateTime.now().toString())
+                .message(exception.getMessage())
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .path(request.getDescription(false))
+                .build();
+
+        return ResponseEntity
+                .status(response.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @ExceptionHandler({OperationNotPermittedException.class, MailAuthenticationException.class, BadCredentialsException.class, SignatureException.class, ExpiredJwtException.class, InsufficientAuthenticationException.class, AccessDeniedException.class, DisabledException.class, LockedException.class})
     public ResponseEntity<HTTPResponse> handleSecurityExceptions(Exception exception, WebRequest request) {
         HTTPResponse response = HTTPResponse.builder().build();
@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,55 @@
+package org.moldidev.moldispizza.executor;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfiguration {
+
+    // image decoding is cpu and memory heavy, a small pool keeps it from competing with request threads
+    // a full queue rejects the task, the callers log it and the variant sweep picks the image up again
+    @Bean
+    ThreadPoolTaskExecutor imageProcessingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        executor.setMaxPoolSize(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("image-processing-");
+        executor.initialize();
+
+        return executor;
+    }
+
+    // storage reads and writes mostly wait on disk or the object store, the caller does the work itself once the queue is full
+    @Bean
+    ThreadPoolTaskExecutor imageStorageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("image-storage-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    // deletions are rare and run chunk after chunk, one worker keeps them from competing for the same rows
+    @Bean
+    ThreadPoolTaskExecutor deletionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("deletion-");
+        executor.initialize();
+
+        return executor;
+    }
+}
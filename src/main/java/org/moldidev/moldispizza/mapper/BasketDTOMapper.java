@@ -2,6 +2,7 @@ package org.moldidev.moldispizza.mapper;
 
 import lombok.RequiredArgsConstructor;
 import org.moldidev.moldispizza.dto.BasketDTO;
+import org.moldidev.moldispizza.dto.BasketItemDTO;
 import org.moldidev.moldispizza.entity.Basket;
 import org.springframework.stereotype.Service;
 
@@ -13,17 +14,22 @@ import java.util.stream.Collectors;
 public class BasketDTOMapper implements Function<Basket, BasketDTO> {
 
     private final UserDTOMapper userDTOMapper;
-    private final PizzaDTOMapper pizzaDTOMapper;
 
+    // the items only name the pizza, its images and details come from the catalog
     @Override
     public BasketDTO apply(Basket basket) {
         return new BasketDTO(
                 basket.getBasketId(),
                 userDTOMapper.apply(basket.getUser()),
                 basket.getTotalPrice(),
-                basket.getPizzas()
+                basket.getItems()
                         .stream()
-                        .map(pizzaDTOMapper::apply)
+                        .map(item -> new BasketItemDTO(
+                                item.getPizza().getPizzaId(),
+                                item.getPizza().getName(),
+                                item.getQuantity(),
+                                item.getUnitPrice()
+                        ))
                         .collect(Collectors.toList())
         );
     }
@@ -0,0 +1,28 @@
+package org.moldidev.moldispizza.mapper;
+
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
+import org.moldidev.moldispizza.entity.DeletionJob;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Function;
+
+@Service
+public class DeletionJobDTOMapper implements Function<DeletionJob, DeletionJobDTO> {
+
+    @Override
+    public DeletionJobDTO apply(DeletionJob deletionJob) {
+        return new DeletionJobDTO(
+                deletionJob.getJobId(),
+                deletionJob.getTarget(),
+                deletionJob.getTargetId(),
+                deletionJob.getStatus(),
+                deletionJob.getStep(),
+                deletionJob.getDeletedReviews(),
+                deletionJob.getDeletedOrders(),
+                deletionJob.getUpdatedBaskets(),
+                deletionJob.getError(),
+                deletionJob.getCreatedDate(),
+                deletionJob.getCompletedDate()
+        );
+    }
+}
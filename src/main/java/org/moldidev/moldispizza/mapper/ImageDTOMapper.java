@@ -1,10 +1,12 @@
 package org.moldidev.moldispizza.mapper;
 
 import org.moldidev.moldispizza.dto.ImageDTO;
+import org.moldidev.moldispizza.dto.ImageVariantDTO;
 import org.moldidev.moldispizza.entity.Image;
 import org.springframework.stereotype.Service;
 
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ImageDTOMapper implements Function<Image, ImageDTO> {
@@ -14,7 +16,18 @@ public class ImageDTOMapper implements Function<Image, ImageDTO> {
         return new ImageDTO(
                 image.getImageId(),
                 image.getUrl(),
-                image.getType()
+                image.getType(),
+                image.getContentHash(),
+                image.getVariants()
+                        .stream()
+                        .map(variant -> new ImageVariantDTO(
+                                variant.getName(),
+                                variant.getType(),
+                                variant.getWidth(),
+                                variant.getHeight(),
+                                variant.getSizeInBytes()
+                        ))
+                        .collect(Collectors.toList())
         );
     }
 }
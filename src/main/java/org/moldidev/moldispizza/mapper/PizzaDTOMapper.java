@@ -2,9 +2,12 @@ package org.moldidev.moldispizza.mapper;
 
 import lombok.RequiredArgsConstructor;
 import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.moldidev.moldispizza.dto.PizzaRatingDTO;
 import org.moldidev.moldispizza.entity.Pizza;
+import org.moldidev.moldispizza.entity.PizzaRating;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -24,7 +27,23 @@ public class PizzaDTOMapper implements Function<Pizza, PizzaDTO> {
                         .map(imageDTOMapper::apply)
                         .collect(Collectors.toList()),
                 pizza.getIngredients(),
-                pizza.getPrice()
+                pizza.getPrice(),
+                rating(pizza.getRating())
+        );
+    }
+
+    private PizzaRatingDTO rating(PizzaRating rating) {
+        if (rating == null) {
+            return new PizzaRatingDTO(0L, null, List.of(0L, 0L, 0L, 0L, 0L));
+        }
+
+        // rounded to two decimals, the exact value can be derived from the histogram
+        Double average = rating.getCount() > 0 ? Math.round(rating.getSum() * 100.0 / rating.getCount()) / 100.0 : null;
+
+        return new PizzaRatingDTO(
+                rating.getCount(),
+                average,
+                List.of(rating.getOneStarCount(), rating.getTwoStarCount(), rating.getThreeStarCount(), rating.getFourStarCount(), rating.getFiveStarCount())
         );
     }
 }
@@ -0,0 +1,321 @@
+package org.moldidev.moldispizza.ranking;
+
+import org.moldidev.moldispizza.enumeration.SalesWindow;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+// units sold per pizza in ring buffers of minute and hour buckets, the window totals are kept up to date so a ranking never sums buckets
+// the shared bucket table holds the sales of every instance, this copy is replaced from it on a timer and in between
+// only follows the sales committed through this instance
+@Component
+public class PizzaSalesRanking {
+
+    public static final int MINUTE_BUCKETS = 60;
+    public static final int HOUR_BUCKETS = 7 * 24;
+
+    private static final int DAY_HOURS = 24;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Object lock = new Object();
+    private final Clock clock;
+
+    // a pizza gets a slot the first time it sells, every array below is indexed by slot
+    private final Map<Long, Integer> slotsByPizzaId = new HashMap<>();
+    private long[] pizzaIds = new long[INITIAL_CAPACITY];
+    private int slotCount;
+
+    // a bucket lives at its epoch minute or hour modulo the ring size
+    private long[][] minuteBuckets = new long[MINUTE_BUCKETS][INITIAL_CAPACITY];
+    private long[][] hourBuckets = new long[HOUR_BUCKETS][INITIAL_CAPACITY];
+
+    private long[] hourTotals = new long[INITIAL_CAPACITY];
+    private long[] dayTotals = new long[INITIAL_CAPACITY];
+    private long[] weekTotals = new long[INITIAL_CAPACITY];
+
+    private long currentMinute;
+
+    public PizzaSalesRanking() {
+        this(Clock.systemDefaultZone());
+    }
+
+    PizzaSalesRanking(Clock clock) {
+        this.clock = clock;
+        this.currentMinute = epochMinute(clock.instant());
+    }
+
+    // a rolled back order must not count, so the ranking follows the commit
+    public void recordAfterCommit(Collection<Long> pizzaIds, LocalDateTime placedDate, int direction) {
+        List<Long> units = List.copyOf(pizzaIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(units, placedDate, direction);
+                }
+            });
+        }
+
+        else {
+            record(units, placedDate, direction);
+        }
+    }
+
+    // every occurrence of a pizza is one unit, a negative direction takes a sale back from the bucket it was counted in
+    public void record(Collection<Long> pizzaIds, LocalDateTime placedDate, int direction) {
+        synchronized (lock) {
+            long now = epochMinute(clock.instant());
+            advance(now);
+
+            long minute = placedDate != null ? Math.min(epochMinute(placedDate), now) : now;
+
+            for (Long pizzaId : pizzaIds) {
+                add(slot(pizzaId), minute, direction);
+            }
+        }
+    }
+
+    // highest first, ties go to the lower pizza id so the order is stable between calls
+    public List<RankedPizza> top(SalesWindow window, int limit) {
+        synchronized (lock) {
+            advance(epochMinute(clock.instant()));
+
+            long[] totals = switch (window) {
+                case HOUR -> hourTotals;
+                case DAY -> dayTotals;
+                case WEEK -> weekTotals;
+            };
+
+            int[] ranked = new int[limit];
+            int rankedCount = 0;
+
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (totals[slot] <= 0) {
+                    continue;
+                }
+
+                int position = rankedCount;
+
+                while (position > 0 && ranksBefore(totals, slot, ranked[position - 1])) {
+                    position--;
+                }
+
+                if (position == limit) {
+                    continue;
+                }
+
+                int end = Math.min(rankedCount, limit - 1);
+                System.arraycopy(ranked, position, ranked, position + 1, end - position);
+                ranked[position] = slot;
+                rankedCount = Math.min(rankedCount + 1, limit);
+            }
+
+            List<RankedPizza> result = new ArrayList<>(rankedCount);
+
+            for (int index = 0; index < rankedCount; index++) {
+                result.add(new RankedPizza(pizzaIds[ranked[index]], totals[ranked[index]]));
+            }
+
+            return result;
+        }
+    }
+
+    // the minute and hour buckets a sale placed at the given minute is counted in, nothing once it left the week
+    public List<Bucket> bucketsOf(Long pizzaId, LocalDateTime placedDate, long units) {
+        long now = epochMinute(clock.instant());
+        long minute = placedDate != null ? Math.min(epochMinute(placedDate), now) : now;
+        long hour = Math.floorDiv(minute, 60);
+
+        List<Bucket> buckets = new ArrayList<>(2);
+
+        if (minute > now - MINUTE_BUCKETS) {
+            buckets.add(new Bucket(pizzaId, minute, 1, units));
+        }
+
+        if (hour > Math.floorDiv(now, 60) - HOUR_BUCKETS) {
+            buckets.add(new Bucket(pizzaId, hour * 60, 60, units));
+        }
+
+        return buckets;
+    }
+
+    // everything recorded so far is dropped, the shared table already holds this instance's committed sales
+    public void replace(Collection<Bucket> buckets) {
+        synchronized (lock) {
+            for (long[] bucket : minuteBuckets) {
+                Arrays.fill(bucket, 0);
+            }
+
+            for (long[] bucket : hourBuckets) {
+                Arrays.fill(bucket, 0);
+            }
+
+            Arrays.fill(hourTotals, 0);
+            Arrays.fill(dayTotals, 0);
+            Arrays.fill(weekTotals, 0);
+
+            restore(buckets);
+        }
+    }
+
+    // adds the buckets to whatever is recorded already, buckets that left their window are skipped
+    public void restore(Collection<Bucket> buckets) {
+        synchronized (lock) {
+            advance(epochMinute(clock.instant()));
+
+            long currentHour = Math.floorDiv(currentMinute, 60);
+
+            for (Bucket bucket : buckets) {
+                int slot = slot(bucket.pizzaId());
+
+                if (bucket.minutes() == 1 && bucket.startMinute() > currentMinute - MINUTE_BUCKETS && bucket.startMinute() <= currentMinute) {
+                    minuteBuckets[ring(bucket.startMinute(), MINUTE_BUCKETS)][slot] += bucket.units();
+                    hourTotals[slot] += bucket.units();
+                }
+
+                long hour = Math.floorDiv(bucket.startMinute(), 60);
+
+                if (bucket.minutes() == 60 && hour > currentHour - HOUR_BUCKETS && hour <= currentHour) {
+                    hourBuckets[ring(hour, HOUR_BUCKETS)][slot] += bucket.units();
+                    weekTotals[slot] += bucket.units();
+
+                    if (hour > currentHour - DAY_HOURS) {
+                        dayTotals[slot] += bucket.units();
+                    }
+                }
+            }
+        }
+    }
+
+    public static long epochMinute(LocalDateTime dateTime) {
+        return epochMinute(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static LocalDateTime toDateTime(long epochMinute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), ZoneId.systemDefault());
+    }
+
+    private static long epochMinute(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 60);
+    }
+
+    private void add(int slot, long minute, int units) {
+        long hour = Math.floorDiv(minute, 60);
+        long currentHour = Math.floorDiv(currentMinute, 60);
+
+        if (minute > currentMinute - MINUTE_BUCKETS) {
+            minuteBuckets[ring(minute, MINUTE_BUCKETS)][slot] += units;
+            hourTotals[slot] += units;
+        }
+
+        if (hour > currentHour - DAY_HOURS) {
+            dayTotals[slot] += units;
+        }
+
+        if (hour > currentHour - HOUR_BUCKETS) {
+            hourBuckets[ring(hour, HOUR_BUCKETS)][slot] += units;
+            weekTotals[slot] += units;
+        }
+    }
+
+    // each bucket that is reused for a new minute or hour first leaves the window totals it was part of
+    private void advance(long minute) {
+        if (minute <= currentMinute) {
+            return;
+        }
+
+        long currentHour = Math.floorDiv(currentMinute, 60);
+        long hour = Math.floorDiv(minute, 60);
+
+        for (long next = Math.max(currentMinute + 1, minute - MINUTE_BUCKETS + 1); next <= minute; next++) {
+            long[] bucket = minuteBuckets[ring(next, MINUTE_BUCKETS)];
+
+            subtract(hourTotals, bucket);
+            Arrays.fill(bucket, 0);
+        }
+
+        if (hour - currentHour >= HOUR_BUCKETS) {
+            for (long[] bucket : hourBuckets) {
+                Arrays.fill(bucket, 0);
+            }
+
+            Arrays.fill(dayTotals, 0);
+            Arrays.fill(weekTotals, 0);
+        }
+
+        else {
+            for (long next = currentHour + 1; next <= hour; next++) {
+                // an hour after the previous current hour was never part of the day total
+                if (next - DAY_HOURS <= currentHour) {
+                    subtract(dayTotals, hourBuckets[ring(next - DAY_HOURS, HOUR_BUCKETS)]);
+                }
+
+                long[] bucket = hourBuckets[ring(next, HOUR_BUCKETS)];
+
+                subtract(weekTotals, bucket);
+                Arrays.fill(bucket, 0);
+            }
+        }
+
+        currentMinute = minute;
+    }
+
+    private int slot(Long pizzaId) {
+        Integer slot = slotsByPizzaId.get(pizzaId);
+
+        if (slot != null) {
+            return slot;
+        }
+
+        if (slotCount == pizzaIds.length) {
+            grow(pizzaIds.length * 2);
+        }
+
+        pizzaIds[slotCount] = pizzaId;
+        slotsByPizzaId.put(pizzaId, slotCount);
+
+        return slotCount++;
+    }
+
+    private void grow(int capacity) {
+        pizzaIds = Arrays.copyOf(pizzaIds, capacity);
+        hourTotals = Arrays.copyOf(hourTotals, capacity);
+        dayTotals = Arrays.copyOf(dayTotals, capacity);
+        weekTotals = Arrays.copyOf(weekTotals, capacity);
+
+        for (int index = 0; index < MINUTE_BUCKETS; index++) {
+            minuteBuckets[index] = Arrays.copyOf(minuteBuckets[index], capacity);
+        }
+
+        for (int index = 0; index < HOUR_BUCKETS; index++) {
+            hourBuckets[index] = Arrays.copyOf(hourBuckets[index], capacity);
+        }
+    }
+
+    private boolean ranksBefore(long[] totals, int slot, int other) {
+        return totals[slot] > totals[other] || (totals[slot] == totals[other] && pizzaIds[slot] < pizzaIds[other]);
+    }
+
+    private void subtract(long[] totals, long[] bucket) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            totals[slot] -= bucket[slot];
+        }
+    }
+
+    private static int ring(long position, int size) {
+        return (int) Math.floorMod(position, size);
+    }
+
+    public record RankedPizza(Long pizzaId, long units) {
+    }
+
+    public record Bucket(Long pizzaId, long startMinute, int minutes, long units) {
+    }
+}
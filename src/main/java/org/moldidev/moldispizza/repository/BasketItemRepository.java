@@ -0,0 +1,98 @@
+package org.moldidev.moldispizza.repository;
+
+import jakarta.persistence.LockModeType;
+import org.moldidev.moldispizza.entity.BasketItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BasketItemRepository extends JpaRepository<BasketItem, Long> {
+    // the first copy inserts the line at the current price, the next ones only raise its quantity
+    // a pizza that is being deleted is already hidden from the catalog and cannot be added either
+    // the total moves in the same statement, so no write touches the other lines of the basket
+    @Modifying
+    @Query(value = "WITH item AS (" +
+            "INSERT INTO public.basket_items AS bi (basket_id, pizza_id, quantity, unit_price, created_date) " +
+            "SELECT :basket_id, p.pizza_id, 1, p.price, LOCALTIMESTAMP FROM public.pizzas AS p WHERE p.pizza_id = :pizza_id " +
+            "AND NOT EXISTS (SELECT 1 FROM public.deletion_jobs AS j WHERE j.target = 'PIZZA' AND j.target_id = p.pizza_id AND j.status = 'RUNNING') " +
+            "ON CONFLICT (basket_id, pizza_id) DO UPDATE SET quantity = bi.quantity + 1, last_modified_date = LOCALTIMESTAMP " +
+            "RETURNING bi.unit_price) " +
+            "UPDATE public.baskets AS b SET total_price = b.total_price + item.unit_price, last_modified_date = LOCALTIMESTAMP " +
+            "FROM item WHERE b.basket_id = :basket_id", nativeQuery = true)
+    int addPizza(@Param("basket_id") Long basketId, @Param("pizza_id") Long pizzaId);
+
+    // the two branches exclude each other, so the line is either decremented or deleted, never both
+    @Modifying
+    @Query(value = "WITH decremented AS (" +
+            "UPDATE public.basket_items SET quantity = quantity - 1, last_modified_date = LOCALTIMESTAMP " +
+            "WHERE basket_id = :basket_id AND pizza_id = :pizza_id AND quantity > 1 RETURNING unit_price), " +
+            "removed AS (" +
+            "DELETE FROM public.basket_items " +
+            "WHERE basket_id = :basket_id AND pizza_id = :pizza_id AND quantity <= 1 RETURNING unit_price), " +
+            "item AS (SELECT unit_price FROM decremented UNION ALL SELECT unit_price FROM removed) " +
+            "UPDATE public.baskets AS b SET total_price = GREATEST(b.total_price - item.unit_price, 0), last_modified_date = LOCALTIMESTAMP " +
+            "FROM item WHERE b.basket_id = :basket_id", nativeQuery = true)
+    int removePizza(@Param("basket_id") Long basketId, @Param("pizza_id") Long pizzaId);
+
+    // the locked lines cannot change until the order is placed, lines added meanwhile stay in the basket
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT bi FROM BasketItem bi WHERE bi.basketId = :basket_id ORDER BY bi.basketItemId")
+    List<BasketItem> findAllByBasketIdForUpdate(@Param("basket_id") Long basketId);
+
+    @Modifying
+    @Query(value = "WITH removed AS (" +
+            "DELETE FROM public.basket_items WHERE basket_item_id IN (:basket_item_ids) RETURNING quantity * unit_price AS amount) " +
+            "UPDATE public.baskets AS b SET total_price = GREATEST(b.total_price - (SELECT SUM(removed.amount) FROM removed), 0), " +
+            "last_modified_date = LOCALTIMESTAMP " +
+            "WHERE b.basket_id = :basket_id AND EXISTS (SELECT 1 FROM removed)", nativeQuery = true)
+    int removeAllByBasketItemIdIn(@Param("basket_id") Long basketId, @Param("basket_item_ids") List<Long> basketItemIds);
+
+    @Modifying
+    @Query("DELETE FROM BasketItem bi WHERE bi.basketId = :basket_id")
+    int deleteAllByBasketId(@Param("basket_id") Long basketId);
+
+    @Query(value = "SELECT bi.basket_id FROM public.basket_items AS bi " +
+            "WHERE bi.pizza_id = :pizza_id LIMIT :chunk_size", nativeQuery = true)
+    List<Long> findChunkBasketIdsByPizzaId(@Param("pizza_id") Long pizzaId, @Param("chunk_size") int chunkSize);
+
+    // the whole line leaves the basket, so its quantity times its price comes off the total
+    @Modifying
+    @Query(value = "WITH removed AS (" +
+            "DELETE FROM public.basket_items WHERE basket_id IN (:basket_ids) AND pizza_id = :pizza_id " +
+            "RETURNING basket_id, quantity * unit_price AS amount) " +
+            "UPDATE public.baskets AS b SET total_price = GREATEST(b.total_price - removed.amount, 0), last_modified_date = LOCALTIMESTAMP " +
+            "FROM removed WHERE b.basket_id = removed.basket_id", nativeQuery = true)
+    int removePizzaByBasketIdIn(@Param("basket_ids") List<Long> basketIds, @Param("pizza_id") Long pizzaId);
+
+    // nodes starting together migrate one after another, the lock is released when the transaction ends
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext('basket_items_migration'))) AS l", nativeQuery = true)
+    long lockLegacyPizzaLinkMigration();
+
+    // the join table of the old many to many mapping, hibernate no longer creates it
+    @Query(value = "SELECT to_regclass('public.baskets_pizzas') IS NOT NULL", nativeQuery = true)
+    boolean existsLegacyPizzaLinks();
+
+    // the links carried no price, every line starts at the pizza's current one
+    @Modifying
+    @Query(value = "INSERT INTO public.basket_items (basket_id, pizza_id, quantity, unit_price, created_date) " +
+            "SELECT bp.basket_basket_id, bp.pizzas_pizza_id, COUNT(*), p.price, LOCALTIMESTAMP " +
+            "FROM public.baskets_pizzas AS bp JOIN public.pizzas AS p ON p.pizza_id = bp.pizzas_pizza_id " +
+            "GROUP BY bp.basket_basket_id, bp.pizzas_pizza_id, p.price " +
+            "ON CONFLICT (basket_id, pizza_id) DO NOTHING", nativeQuery = true)
+    int migrateLegacyPizzaLinks();
+
+    @Modifying
+    @Query(value = "UPDATE public.baskets AS b SET total_price = COALESCE(" +
+            "(SELECT SUM(bi.quantity * bi.unit_price) FROM public.basket_items AS bi WHERE bi.basket_id = b.basket_id), 0)", nativeQuery = true)
+    int recalculateTotalPrices();
+
+    @Modifying
+    @Query(value = "DROP TABLE IF EXISTS public.baskets_pizzas", nativeQuery = true)
+    void dropLegacyPizzaLinks();
+}
@@ -1,12 +1,30 @@
 package org.moldidev.moldispizza.repository;
 
 import org.moldidev.moldispizza.entity.Basket;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface BasketRepository extends JpaRepository<Basket, Long> {
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.image", "items", "items.pizza"})
+    Optional<Basket> findById(Long basketId);
+
+    // pages only join the to-one side, a collection join would make hibernate apply the limit in memory
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.image"})
+    Page<Basket> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "user.image", "items", "items.pizza"})
     Optional<Basket> findByUserUserId(Long userId);
+
+    @Query("SELECT b.basketId FROM Basket b WHERE b.user.userId = :user_id")
+    Optional<Long> findBasketIdByUserId(@Param("user_id") Long userId);
 }
@@ -0,0 +1,34 @@
+package org.moldidev.moldispizza.repository;
+
+import jakarta.persistence.LockModeType;
+import org.moldidev.moldispizza.entity.DeletionJob;
+import org.moldidev.moldispizza.enumeration.DeletionJobStatus;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DeletionJobRepository extends JpaRepository<DeletionJob, UUID> {
+    Optional<DeletionJob> findFirstByTargetAndTargetIdAndStatus(DeletionTarget target, Long targetId, DeletionJobStatus status);
+
+    List<DeletionJob> findAllByStatus(DeletionJobStatus status);
+
+    // two workers on the same job, e.g. after a restart of several instances, take turns chunk by chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM DeletionJob j WHERE j.jobId = :job_id")
+    Optional<DeletionJob> findWithLockByJobId(@Param("job_id") UUID jobId);
+
+    // held until the submitting transaction ends, a second submission for the same target then finds the job the first one created
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext('deletion_job:' || :target || ':' || :target_id))) AS l", nativeQuery = true)
+    long lockTarget(@Param("target") String target, @Param("target_id") Long targetId);
+
+    @Query("SELECT j.targetId FROM DeletionJob j WHERE j.target = :target AND j.status = :status")
+    List<Long> findAllTargetIdsByTargetAndStatus(@Param("target") DeletionTarget target, @Param("status") DeletionJobStatus status);
+}
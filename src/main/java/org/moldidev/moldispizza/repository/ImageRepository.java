@@ -1,19 +1,38 @@
 package org.moldidev.moldispizza.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.moldidev.moldispizza.dto.ModificationSummaryDTO;
 import org.moldidev.moldispizza.entity.Image;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
     Optional<Image> findByUrl(String name);
+    boolean existsByUrl(String url);
+    Optional<Image> findByContentHash(String contentHash);
+    List<Image> findAllByContentHashIn(Collection<String> contentHashes);
+    List<Image> findAllByContentHashIsNull();
+    List<Image> findAllByUrlStartingWith(String prefix);
+
+    @Query(value = "SELECT i.* FROM public.images AS i " +
+            "WHERE i.created_date < :created_before " +
+            "AND NOT EXISTS (SELECT 1 FROM public.images_variants AS iv WHERE iv.image_id = i.image_id) " +
+            "ORDER BY i.image_id LIMIT :limit", nativeQuery = true)
+    List<Image> findAllWithoutVariantsCreatedBefore(@Param("created_before") LocalDateTime createdBefore, @Param("limit") int limit);
 
     @Query(value = "SELECT i.* FROM public.images AS i " +
             "JOIN public.users AS u ON i.image_id = u.image_id " +
@@ -22,9 +41,78 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
 
     Page<Image> findAllByType(String type, Pageable pageable);
 
+    // keyset pages compare the (created date, id) tuple, so no offset is scanned and no total is counted
+    @Query("SELECT i FROM Image i WHERE (i.createdDate, i.imageId) > (:created_date, :image_id) ORDER BY i.createdDate, i.imageId")
+    List<Image> findAllAfter(@Param("created_date") LocalDateTime createdDate, @Param("image_id") Long imageId, Pageable pageable);
+
+    @Query("SELECT i FROM Image i WHERE i.type = :type AND (i.createdDate, i.imageId) > (:created_date, :image_id) ORDER BY i.createdDate, i.imageId")
+    List<Image> findAllByTypeAfter(@Param("type") String type, @Param("created_date") LocalDateTime createdDate, @Param("image_id") Long imageId, Pageable pageable);
+
     @Query(value = "SELECT i.* FROM public.images AS i " +
             "JOIN public.pizzas_images AS pi ON i.image_id = pi.images_image_id " +
             "JOIN public.pizzas AS p ON p.pizza_id = pi.pizza_pizza_id " +
             "WHERE p.pizza_id = :pizza_id", nativeQuery = true)
     List<Image> findAllByPizzaId(@Param("pizza_id") Long pizzaId);
+
+    @Query(value = "SELECT i.* FROM public.images AS i " +
+            "WHERE EXISTS (SELECT 1 FROM public.pizzas_images AS pi WHERE pi.images_image_id = i.image_id)", nativeQuery = true)
+    List<Image> findAllReferencedByPizzas();
+
+    @Query("SELECT DISTINCT i FROM Pizza p JOIN p.images i LEFT JOIN FETCH i.variants WHERE p.pizzaId = :pizza_id")
+    List<Image> findAllWithVariantsByPizzaId(@Param("pizza_id") Long pizzaId);
+
+    @Query("SELECT DISTINCT i FROM Image i LEFT JOIN FETCH i.variants WHERE i.imageId IN :image_ids")
+    List<Image> findAllWithVariantsByImageIdIn(@Param("image_ids") Collection<Long> imageIds);
+
+    @Query("SELECT new org.moldidev.moldispizza.dto.ModificationSummaryDTO(COUNT(i), MAX(COALESCE(i.lastModifiedDate, i.createdDate))) " +
+            "FROM Image i WHERE i.imageId = :image_id")
+    ModificationSummaryDTO findModificationSummaryById(@Param("image_id") Long imageId);
+
+    // swapping the profile picture only touches the user row, so its date counts as well
+    @Query("SELECT new org.moldidev.moldispizza.dto.ModificationSummaryDTO(COUNT(i), greatest(" +
+            "MAX(COALESCE(u.lastModifiedDate, u.createdDate)), " +
+            "MAX(COALESCE(i.lastModifiedDate, i.createdDate)))) " +
+            "FROM User u JOIN u.image i WHERE u.userId = :user_id")
+    ModificationSummaryDTO findModificationSummaryByUserId(@Param("user_id") Long userId);
+
+    @Query(value = "SELECT (SELECT COUNT(*) FROM public.users AS u WHERE u.image_id = :image_id) + " +
+            "(SELECT COUNT(*) FROM public.pizzas_images AS pi WHERE pi.images_image_id = :image_id)", nativeQuery = true)
+    long countReferencesByImageId(@Param("image_id") Long imageId);
+
+    // rows inserted while the id was an identity column are above the fresh sequence, move it past them
+    @Query(value = "SELECT setval('public.images_sequence', GREATEST(" +
+            "(SELECT COALESCE(MAX(i.image_id), 0) FROM public.images AS i) + 50, " +
+            "(SELECT s.last_value FROM public.images_sequence AS s)))", nativeQuery = true)
+    long alignIdSequence();
+
+    // collated byte wise so the order matches the storage listing
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT k.url FROM (SELECT i.url FROM public.images AS i " +
+            "UNION ALL SELECT iv.url FROM public.images_variants AS iv) AS k " +
+            "ORDER BY k.url COLLATE \"C\"", nativeQuery = true)
+    Stream<String> streamAllKeysOrderByKey();
+
+    @Modifying
+    @Query(value = "UPDATE public.users SET image_id = :target_image_id " +
+            "WHERE image_id = :source_image_id", nativeQuery = true)
+    int moveUserReferences(@Param("source_image_id") Long sourceImageId, @Param("target_image_id") Long targetImageId);
+
+    @Modifying
+    @Query(value = "UPDATE public.pizzas_images SET images_image_id = :target_image_id " +
+            "WHERE images_image_id = :source_image_id", nativeQuery = true)
+    int movePizzaReferences(@Param("source_image_id") Long sourceImageId, @Param("target_image_id") Long targetImageId);
+
+    // uploads and deletions of the same storage key take turns, the lock is released when the transaction ends
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext(:key))) AS l", nativeQuery = true)
+    long lockKey(@Param("key") String key);
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('image_garbage_collection'))", nativeQuery = true)
+    boolean tryLockGarbageCollection();
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('image_variant_sweep'))", nativeQuery = true)
+    boolean tryLockVariantSweep();
+
+    // held until the transaction ends, a node that does not get it skips the backfill
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('image_content_hash_backfill'))", nativeQuery = true)
+    boolean tryLockContentHashBackfill();
 }
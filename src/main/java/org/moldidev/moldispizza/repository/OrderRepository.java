@@ -1,17 +1,70 @@
 package org.moldidev.moldispizza.repository;
 
+import org.moldidev.moldispizza.dto.PizzaSaleDTO;
 import org.moldidev.moldispizza.entity.Order;
 import org.moldidev.moldispizza.enumeration.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
+    // a single order joins its pizzas as well, pages only join the to-one side so the limit stays in the database
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.image", "pizzas"})
+    Optional<Order> findById(UUID orderId);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.image"})
+    Page<Order> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "user.image"})
     Page<Order> findAllByUserUserId(Long userId, Pageable pageable);
-    Page<Order> findAllByPizzasPizzaId(Long pizzaId, Pageable pageable);
     Boolean existsByUserUserIdAndPizzasPizzaIdAndStatus(Long userId, Long pizzaId, OrderStatus status);
+
+    // keyset pages compare the (created date, id) tuple, so no offset is scanned and no total is counted
+    @Query("SELECT o FROM Order o WHERE (o.createdDate, o.orderId) > (:created_date, :order_id) ORDER BY o.createdDate, o.orderId")
+    @EntityGraph(attributePaths = {"user", "user.image"})
+    List<Order> findAllAfter(@Param("created_date") LocalDateTime createdDate, @Param("order_id") UUID orderId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.user.userId = :user_id AND (o.createdDate, o.orderId) > (:created_date, :order_id) ORDER BY o.createdDate, o.orderId")
+    @EntityGraph(attributePaths = {"user", "user.image"})
+    List<Order> findAllByUserIdAfter(@Param("user_id") Long userId, @Param("created_date") LocalDateTime createdDate, @Param("order_id") UUID orderId, Pageable pageable);
+
+    // one row per pizza occurrence, only read when the sales ranking has no checkpoint to start from
+    @Query("SELECT new org.moldidev.moldispizza.dto.PizzaSaleDTO(p.pizzaId, o.createdDate) FROM Order o JOIN o.pizzas p " +
+            "WHERE o.status IN :statuses AND o.createdDate > :since")
+    List<PizzaSaleDTO> findAllSalesByStatusInAndCreatedDateAfter(@Param("statuses") List<OrderStatus> statuses, @Param("since") LocalDateTime since);
+
+    @Query("SELECT new org.moldidev.moldispizza.dto.PizzaSaleDTO(p.pizzaId, o.createdDate) FROM Order o JOIN o.pizzas p " +
+            "WHERE o.orderId IN :order_ids AND o.status IN :statuses")
+    List<PizzaSaleDTO> findAllSalesByOrderIdInAndStatusIn(@Param("order_ids") List<UUID> orderIds, @Param("statuses") List<OrderStatus> statuses);
+
+    @Query(value = "SELECT DISTINCT op.order_order_id FROM public.orders_pizzas AS op " +
+            "WHERE op.pizzas_pizza_id = :pizza_id LIMIT :chunk_size", nativeQuery = true)
+    List<UUID> findChunkIdsByPizzaId(@Param("pizza_id") Long pizzaId, @Param("chunk_size") int chunkSize);
+
+    @Query(value = "SELECT o.order_id FROM public.orders AS o " +
+            "WHERE o.user_id = :user_id LIMIT :chunk_size", nativeQuery = true)
+    List<UUID> findChunkIdsByUserId(@Param("user_id") Long userId, @Param("chunk_size") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM public.orders_pizzas " +
+            "WHERE order_order_id IN (:order_ids)", nativeQuery = true)
+    int deletePizzaLinksByOrderIdIn(@Param("order_ids") List<UUID> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM public.orders " +
+            "WHERE order_id IN (:order_ids)", nativeQuery = true)
+    int deleteAllByOrderIdIn(@Param("order_ids") List<UUID> orderIds);
 }
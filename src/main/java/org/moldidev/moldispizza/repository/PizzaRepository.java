@@ -1,24 +1,98 @@
 package org.moldidev.moldispizza.repository;
 
 import org.moldidev.moldispizza.entity.Pizza;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface PizzaRepository extends JpaRepository<Pizza,Long> {
+    // the menu is read whole, so its images are joined in the same query
+    @Override
+    @EntityGraph(attributePaths = {"images"})
+    List<Pizza> findAll(Sort sort);
+
+    @Override
+    @EntityGraph(attributePaths = {"images"})
+    Optional<Pizza> findById(Long pizzaId);
+
     Optional<Pizza> findByNameIgnoreCase(String name);
 
     @Query(value = "SELECT p.* FROM public.pizzas AS p " +
             "JOIN public.pizzas_images AS pi ON p.pizza_id = pi.pizza_pizza_id " +
             "JOIN public.images AS i ON pi.images_image_id = i.image_id " +
             "WHERE i.image_id = :image_id", nativeQuery = true)
-    Optional<Pizza> findByImageId(@Param("image_id") Long imageId);
+    List<Pizza> findAllByImageId(@Param("image_id") Long imageId);
 
     @Query(value = "SELECT p.* FROM public.pizzas AS p " +
             "JOIN public.pizzas_images AS pi ON p.pizza_id = pi.pizza_pizza_id " +
             "JOIN public.images AS i ON pi.images_image_id = i.image_id " +
             "WHERE i.url = :image_url", nativeQuery = true)
     Optional<Pizza> findByImageUrl(@Param("image_url") String imageUrl);
+
+    // 0 stands for no rating, so one statement covers a new, a changed and a removed review
+    @Modifying
+    @Query(value = "UPDATE public.pizzas SET " +
+            "rating_count = rating_count + (CASE WHEN :added_rating > 0 THEN 1 ELSE 0 END) - (CASE WHEN :removed_rating > 0 THEN 1 ELSE 0 END), " +
+            "rating_sum = rating_sum + :added_rating - :removed_rating, " +
+            "rating_one_count = rating_one_count + (CASE WHEN :added_rating = 1 THEN 1 ELSE 0 END) - (CASE WHEN :removed_rating = 1 THEN 1 ELSE 0 END), " +
+            "rating_two_count = rating_two_count + (CASE WHEN :added_rating = 2 THEN 1 ELSE 0 END) - (CASE WHEN :removed_rating = 2 THEN 1 ELSE 0 END), " +
+            "rating_three_count = rating_three_count + (CASE WHEN :added_rating = 3 THEN 1 ELSE 0 END) - (CASE WHEN :removed_rating = 3 THEN 1 ELSE 0 END), " +
+            "rating_four_count = rating_four_count + (CASE WHEN :added_rating = 4 THEN 1 ELSE 0 END) - (CASE WHEN :removed_rating = 4 THEN 1 ELSE 0 END), " +
+            "rating_five_count = rating_five_count + (CASE WHEN :added_rating = 5 THEN 1 ELSE 0 END) - (CASE WHEN :removed_rating = 5 THEN 1 ELSE 0 END) " +
+            "WHERE pizza_id = :pizza_id", nativeQuery = true)
+    int moveRating(@Param("pizza_id") Long pizzaId, @Param("removed_rating") int removedRating, @Param("added_rating") int addedRating);
+
+    // held until the transaction ends, a node that does not get it skips the rebuild
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('pizza_rating_rebuild'))", nativeQuery = true)
+    boolean tryLockRatingRebuild();
+
+    // a plain read, it takes no locks, a pizza listed here is recounted under its row lock before anything is written
+    @Query(value = "SELECT p.pizza_id FROM public.pizzas AS p " +
+            "LEFT JOIN (SELECT r.pizza_id, " +
+            "COUNT(*) AS rating_count, " +
+            "SUM(r.rating) AS rating_sum, " +
+            "COUNT(*) FILTER (WHERE r.rating = 1) AS rating_one_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 2) AS rating_two_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 3) AS rating_three_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 4) AS rating_four_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 5) AS rating_five_count " +
+            "FROM public.reviews AS r GROUP BY r.pizza_id) AS a ON a.pizza_id = p.pizza_id " +
+            "WHERE (p.rating_count, p.rating_sum, p.rating_one_count, p.rating_two_count, p.rating_three_count, p.rating_four_count, p.rating_five_count) " +
+            "IS DISTINCT FROM (COALESCE(a.rating_count, 0), COALESCE(a.rating_sum, 0), COALESCE(a.rating_one_count, 0), COALESCE(a.rating_two_count, 0), " +
+            "COALESCE(a.rating_three_count, 0), COALESCE(a.rating_four_count, 0), COALESCE(a.rating_five_count, 0))", nativeQuery = true)
+    List<Long> findAllIdsWithRatingDrift();
+
+    // the same row lock a review transaction takes to move the aggregates, it does not block new reviews referencing the pizza
+    @Query(value = "SELECT pizza_id FROM public.pizzas WHERE pizza_id = :pizza_id FOR NO KEY UPDATE", nativeQuery = true)
+    Optional<Long> lockRatingsById(@Param("pizza_id") Long pizzaId);
+
+    // only writes when the recount still disagrees with the aggregates
+    @Modifying
+    @Query(value = "UPDATE public.pizzas AS p SET " +
+            "rating_count = a.rating_count, " +
+            "rating_sum = a.rating_sum, " +
+            "rating_one_count = a.rating_one_count, " +
+            "rating_two_count = a.rating_two_count, " +
+            "rating_three_count = a.rating_three_count, " +
+            "rating_four_count = a.rating_four_count, " +
+            "rating_five_count = a.rating_five_count " +
+            "FROM (SELECT " +
+            "COUNT(*) AS rating_count, " +
+            "COALESCE(SUM(r.rating), 0) AS rating_sum, " +
+            "COUNT(*) FILTER (WHERE r.rating = 1) AS rating_one_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 2) AS rating_two_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 3) AS rating_three_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 4) AS rating_four_count, " +
+            "COUNT(*) FILTER (WHERE r.rating = 5) AS rating_five_count " +
+            "FROM public.reviews AS r WHERE r.pizza_id = :pizza_id) AS a " +
+            "WHERE p.pizza_id = :pizza_id " +
+            "AND (p.rating_count, p.rating_sum, p.rating_one_count, p.rating_two_count, p.rating_three_count, p.rating_four_count, p.rating_five_count) " +
+            "IS DISTINCT FROM (a.rating_count, a.rating_sum, a.rating_one_count, a.rating_two_count, a.rating_three_count, a.rating_four_count, a.rating_five_count)", nativeQuery = true)
+    int repairRatingsById(@Param("pizza_id") Long pizzaId);
 }
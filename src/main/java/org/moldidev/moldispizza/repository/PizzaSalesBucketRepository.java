@@ -0,0 +1,44 @@
+package org.moldidev.moldispizza.repository;
+
+import org.moldidev.moldispizza.entity.PizzaSalesBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PizzaSalesBucketRepository extends JpaRepository<PizzaSalesBucket, Long> {
+    List<PizzaSalesBucket> findAllByBucketStartAfter(LocalDateTime since);
+
+    boolean existsByBucketStartAfter(LocalDateTime since);
+
+    // concurrent orders of the same pizza queue on the bucket row until the first one commits, none of them loses a unit
+    @Modifying
+    @Query(value = "INSERT INTO public.pizza_sales_window_buckets AS b (pizza_id, bucket_start, bucket_minutes, units, created_date) " +
+            "VALUES (:pizza_id, :bucket_start, :bucket_minutes, :units, LOCALTIMESTAMP) " +
+            "ON CONFLICT (pizza_id, bucket_start, bucket_minutes) DO UPDATE SET units = b.units + EXCLUDED.units, last_modified_date = LOCALTIMESTAMP", nativeQuery = true)
+    int addUnits(@Param("pizza_id") Long pizzaId, @Param("bucket_start") LocalDateTime bucketStart, @Param("bucket_minutes") int bucketMinutes, @Param("units") long units);
+
+    // the seed counted every order committed before it read them, so it replaces a bucket such an order already added to
+    @Modifying
+    @Query(value = "INSERT INTO public.pizza_sales_window_buckets AS b (pizza_id, bucket_start, bucket_minutes, units, created_date) " +
+            "VALUES (:pizza_id, :bucket_start, :bucket_minutes, :units, LOCALTIMESTAMP) " +
+            "ON CONFLICT (pizza_id, bucket_start, bucket_minutes) DO UPDATE SET units = EXCLUDED.units, last_modified_date = LOCALTIMESTAMP", nativeQuery = true)
+    int seedUnits(@Param("pizza_id") Long pizzaId, @Param("bucket_start") LocalDateTime bucketStart, @Param("bucket_minutes") int bucketMinutes, @Param("units") long units);
+
+    // minute buckets are only needed for the last hour, hour buckets for the last week
+    @Modifying
+    @Query("DELETE FROM PizzaSalesBucket b WHERE b.bucketStart < :hours_expired_before OR (b.bucketMinutes = 1 AND b.bucketStart < :minutes_expired_before)")
+    int deleteAllExpired(@Param("minutes_expired_before") LocalDateTime minutesExpiredBefore, @Param("hours_expired_before") LocalDateTime hoursExpiredBefore);
+
+    // instances that start together wait for each other, so only the first one seeds an empty table
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext('pizza_sales_seed'))) AS l", nativeQuery = true)
+    long lockSeed();
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('pizza_sales_cleanup'))", nativeQuery = true)
+    boolean tryLockCleanup();
+}
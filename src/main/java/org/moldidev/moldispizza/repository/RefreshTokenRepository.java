@@ -0,0 +1,34 @@
+package org.moldidev.moldispizza.repository;
+
+import org.moldidev.moldispizza.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    @Modifying
+    @Query(value = "UPDATE public.refresh_tokens SET is_used = true " +
+            "WHERE refresh_token_id = :refresh_token_id AND is_used = false AND is_revoked = false", nativeQuery = true)
+    int markAsUsed(@Param("refresh_token_id") UUID refreshTokenId);
+
+    @Modifying
+    @Query(value = "UPDATE public.refresh_tokens SET is_revoked = true " +
+            "WHERE family_id = :family_id", nativeQuery = true)
+    int revokeFamily(@Param("family_id") UUID familyId);
+
+    @Modifying
+    @Query(value = "UPDATE public.refresh_tokens SET is_revoked = true " +
+            "WHERE user_id = :user_id", nativeQuery = true)
+    int revokeAllByUserId(@Param("user_id") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM public.refresh_tokens " +
+            "WHERE user_id = :user_id", nativeQuery = true)
+    int deleteAllByUserId(@Param("user_id") Long userId);
+}
@@ -1,15 +1,109 @@
 package org.moldidev.moldispizza.repository;
 
+import jakarta.persistence.LockModeType;
+import org.moldidev.moldispizza.dto.ModificationSummaryDTO;
 import org.moldidev.moldispizza.entity.Review;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     Boolean existsReviewByUserUserIdAndPizzaPizzaId(Long userId, Long pizzaId);
 
+    // a review response embeds its user and pizza, the to-one side is joined and the image collections are batch fetched
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
+    Optional<Review> findById(Long reviewId);
+
+    // an update or delete moves the rating it read off the pizza aggregates, so a concurrent change to the review waits for it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.reviewId = :review_id")
+    Optional<Review> findWithLockByReviewId(@Param("review_id") Long reviewId);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
+    Page<Review> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
     Page<Review> findAllByUserUserId(Long userId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
     Page<Review> findAllByPizzaPizzaId(Long pizzaId, Pageable pageable);
+
+    // keyset pages compare the (created date, id) tuple, so no offset is scanned and no total is counted
+    @Query("SELECT r FROM Review r WHERE (r.createdDate, r.reviewId) > (:created_date, :review_id) ORDER BY r.createdDate, r.reviewId")
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
+    List<Review> findAllAfter(@Param("created_date") LocalDateTime createdDate, @Param("review_id") Long reviewId, Pageable pageable);
+
+    @Query("SELECT r FROM Review r WHERE r.user.userId = :user_id AND (r.createdDate, r.reviewId) > (:created_date, :review_id) ORDER BY r.createdDate, r.reviewId")
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
+    List<Review> findAllByUserIdAfter(@Param("user_id") Long userId, @Param("created_date") LocalDateTime createdDate, @Param("review_id") Long reviewId, Pageable pageable);
+
+    @Query("SELECT r FROM Review r WHERE r.pizza.pizzaId = :pizza_id AND (r.createdDate, r.reviewId) > (:created_date, :review_id) ORDER BY r.createdDate, r.reviewId")
+    @EntityGraph(attributePaths = {"user", "user.image", "pizza"})
+    List<Review> findAllByPizzaIdAfter(@Param("pizza_id") Long pizzaId, @Param("created_date") LocalDateTime createdDate, @Param("review_id") Long reviewId, Pageable pageable);
+
+    // a review response embeds its user and pizza with their images, so their dates count as well
+    String MODIFICATION_SUMMARY = "SELECT new org.moldidev.moldispizza.dto.ModificationSummaryDTO(COUNT(DISTINCT r.reviewId), greatest(" +
+            "MAX(COALESCE(r.lastModifiedDate, r.createdDate)), " +
+            "MAX(COALESCE(u.lastModifiedDate, u.createdDate)), " +
+            "MAX(COALESCE(ui.lastModifiedDate, ui.createdDate)), " +
+            "MAX(COALESCE(p.lastModifiedDate, p.createdDate)), " +
+            "MAX(COALESCE(pi.lastModifiedDate, pi.createdDate)))) " +
+            "FROM Review r JOIN r.user u LEFT JOIN u.image ui JOIN r.pizza p LEFT JOIN p.images pi ";
+
+    @Query(MODIFICATION_SUMMARY)
+    ModificationSummaryDTO findModificationSummary();
+
+    @Query(MODIFICATION_SUMMARY + "WHERE r.reviewId = :review_id")
+    ModificationSummaryDTO findModificationSummaryById(@Param("review_id") Long reviewId);
+
+    @Query(MODIFICATION_SUMMARY + "WHERE u.userId = :user_id")
+    ModificationSummaryDTO findModificationSummaryByUserId(@Param("user_id") Long userId);
+
+    @Query(MODIFICATION_SUMMARY + "WHERE p.pizzaId = :pizza_id")
+    ModificationSummaryDTO findModificationSummaryByPizzaId(@Param("pizza_id") Long pizzaId);
+
+
+    @Query(value = "SELECT r.review_id FROM public.reviews AS r " +
+            "WHERE r.pizza_id = :pizza_id LIMIT :chunk_size", nativeQuery = true)
+    List<Long> findChunkIdsByPizzaId(@Param("pizza_id") Long pizzaId, @Param("chunk_size") int chunkSize);
+
+    @Query(value = "SELECT r.review_id FROM public.reviews AS r " +
+            "WHERE r.user_id = :user_id LIMIT :chunk_size", nativeQuery = true)
+    List<Long> findChunkIdsByUserId(@Param("user_id") Long userId, @Param("chunk_size") int chunkSize);
+
+    // the rating aggregates of every affected pizza move in the same statement as the delete
+    @Modifying
+    @Query(value = "WITH deleted AS (DELETE FROM public.reviews WHERE review_id IN (:review_ids) RETURNING pizza_id, rating), " +
+            "totals AS (SELECT d.pizza_id, " +
+            "COUNT(*) AS rating_count, " +
+            "SUM(d.rating) AS rating_sum, " +
+            "COUNT(*) FILTER (WHERE d.rating = 1) AS rating_one_count, " +
+            "COUNT(*) FILTER (WHERE d.rating = 2) AS rating_two_count, " +
+            "COUNT(*) FILTER (WHERE d.rating = 3) AS rating_three_count, " +
+            "COUNT(*) FILTER (WHERE d.rating = 4) AS rating_four_count, " +
+            "COUNT(*) FILTER (WHERE d.rating = 5) AS rating_five_count " +
+            "FROM deleted AS d GROUP BY d.pizza_id) " +
+            "UPDATE public.pizzas AS p SET " +
+            "rating_count = p.rating_count - t.rating_count, " +
+            "rating_sum = p.rating_sum - t.rating_sum, " +
+            "rating_one_count = p.rating_one_count - t.rating_one_count, " +
+            "rating_two_count = p.rating_two_count - t.rating_two_count, " +
+            "rating_three_count = p.rating_three_count - t.rating_three_count, " +
+            "rating_four_count = p.rating_four_count - t.rating_four_count, " +
+            "rating_five_count = p.rating_five_count - t.rating_five_count " +
+            "FROM totals AS t WHERE p.pizza_id = t.pizza_id", nativeQuery = true)
+    int deleteAllByReviewIdInAndReleaseRatings(@Param("review_ids") List<Long> reviewIds);
 }
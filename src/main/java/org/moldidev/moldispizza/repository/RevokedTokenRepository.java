@@ -0,0 +1,21 @@
+package org.moldidev.moldispizza.repository;
+
+import org.moldidev.moldispizza.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    List<RevokedToken> findAllByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM public.revoked_tokens " +
+            "WHERE expires_at <= :now", nativeQuery = true)
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
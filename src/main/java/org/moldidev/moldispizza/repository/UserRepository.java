@@ -1,27 +1,69 @@
 package org.moldidev.moldispizza.repository;
 
+import org.moldidev.moldispizza.dto.ModificationSummaryDTO;
 import org.moldidev.moldispizza.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Override
+    @EntityGraph(attributePaths = {"image"})
+    Optional<User> findById(Long userId);
+
+    @Override
+    @EntityGraph(attributePaths = {"image"})
+    Page<User> findAll(Pageable pageable);
+
     Optional<User> findByUsernameIgnoreCase(String username);
     Optional<User> findByEmailIgnoreCase(String email);
     Optional<User> findByVerificationToken(String verificationToken);
     Optional<User> findByResetPasswordToken(String resetPasswordToken);
+    List<User> findAllByTokensRevokedAtAfter(LocalDateTime since);
+
+    // keyset pages compare the (created date, id) tuple, so no offset is scanned and no total is counted
+    @Query("SELECT u FROM User u WHERE (u.createdDate, u.userId) > (:created_date, :user_id) ORDER BY u.createdDate, u.userId")
+    @EntityGraph(attributePaths = {"image"})
+    List<User> findAllAfter(@Param("created_date") LocalDateTime createdDate, @Param("user_id") Long userId, Pageable pageable);
+
+    @Query("SELECT new org.moldidev.moldispizza.dto.ModificationSummaryDTO(COUNT(u), greatest(" +
+            "MAX(COALESCE(u.lastModifiedDate, u.createdDate)), " +
+            "MAX(COALESCE(i.lastModifiedDate, i.createdDate)))) " +
+            "FROM User u LEFT JOIN u.image i WHERE u.userId = :user_id")
+    ModificationSummaryDTO findModificationSummaryById(@Param("user_id") Long userId);
+
+    @Query("SELECT new org.moldidev.moldispizza.dto.ModificationSummaryDTO(COUNT(u), greatest(" +
+            "MAX(COALESCE(u.lastModifiedDate, u.createdDate)), " +
+            "MAX(COALESCE(i.lastModifiedDate, i.createdDate)))) " +
+            "FROM User u LEFT JOIN u.image i WHERE LOWER(u.username) = LOWER(:username)")
+    ModificationSummaryDTO findModificationSummaryByUsername(@Param("username") String username);
 
     @Query(value = "SELECT u.* FROM public.users AS u " +
             "JOIN public.images AS i ON u.image_id = i.image_id " +
             "WHERE i.image_id = :image_id", nativeQuery = true)
-    Optional<User> findByImageId(@Param("image_id") Long imageId);
+    List<User> findAllByImageId(@Param("image_id") Long imageId);
 
     @Query(value = "SELECT u.* FROM public.users AS u " +
             "JOIN public.images AS i ON u.image_id = i.image_id " +
             "WHERE i.url = :image_url", nativeQuery = true)
     Optional<User> findByImageUrl(@Param("image_url") String imageUrl);
+
+    @Query(value = "SELECT u.security_version FROM public.users AS u " +
+            "WHERE u.user_id = :user_id", nativeQuery = true)
+    Optional<Long> findSecurityVersionByUserId(@Param("user_id") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE public.users SET password = :password " +
+            "WHERE LOWER(username) = LOWER(:username)", nativeQuery = true)
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
 }
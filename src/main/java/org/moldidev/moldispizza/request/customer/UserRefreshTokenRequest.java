@@ -0,0 +1,13 @@
+package org.moldidev.moldispizza.request.customer;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+public record UserRefreshTokenRequest(
+        @NotNull(message = "The refresh token is required")
+        @NotEmpty(message = "The refresh token is required")
+        @NotBlank(message = "The refresh token is required")
+        String refreshToken
+) {
+}
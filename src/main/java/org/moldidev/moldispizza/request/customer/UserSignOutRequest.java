@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.request.customer;
+
+public record UserSignOutRequest(
+        String refreshToken,
+        String rememberMeToken
+) {
+}
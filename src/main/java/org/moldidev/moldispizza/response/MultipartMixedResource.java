@@ -0,0 +1,111 @@
+package org.moldidev.moldispizza.response;
+
+import org.moldidev.moldispizza.dto.ImageContentDTO;
+import org.moldidev.moldispizza.storage.ImageTypes;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+
+// a multipart/mixed body over several images, each part is only opened once the previous one has been written
+public class MultipartMixedResource extends AbstractResource {
+
+    private final List<ImageContentDTO> contents;
+    private final String boundary;
+
+    public MultipartMixedResource(List<ImageContentDTO> contents) {
+        this.contents = contents;
+        this.boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        List<PartSupplier> parts = new ArrayList<>();
+
+        for (ImageContentDTO content : contents) {
+            parts.add(() -> new ByteArrayInputStream(partHeader(content)));
+            parts.add(() -> content.resource().getInputStream());
+            parts.add(() -> new ByteArrayInputStream(lineBreak()));
+        }
+
+        parts.add(() -> new ByteArrayInputStream(closingDelimiter()));
+
+        Iterator<PartSupplier> iterator = parts.iterator();
+
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return iterator.next().open();
+                }
+
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public long contentLength() {
+        long length = closingDelimiter().length;
+
+        for (ImageContentDTO content : contents) {
+            length += partHeader(content).length + content.size() + lineBreak().length;
+        }
+
+        return length;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "multipart image content";
+    }
+
+    private byte[] partHeader(ImageContentDTO content) {
+        String header = "--" + boundary + "\r\n" +
+                "Content-Type: " + (ImageTypes.isServable(content.type()) ? content.type() : MediaType.APPLICATION_OCTET_STREAM_VALUE) + "\r\n" +
+                "Content-Length: " + content.size() + "\r\n" +
+                "Content-ID: <" + content.imageId() + ">\r\n" +
+                "ETag: " + content.eTag() + "\r\n" +
+                "\r\n";
+
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] lineBreak() {
+        return "\r\n".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] closingDelimiter() {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private interface PartSupplier {
+        InputStream open() throws IOException;
+    }
+}
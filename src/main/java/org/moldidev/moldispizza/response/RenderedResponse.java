@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.response;
+
+public record RenderedResponse(byte[] body,
+                               byte[] gzippedBody,
+                               String eTag,
+                               String gzippedETag) {
+}
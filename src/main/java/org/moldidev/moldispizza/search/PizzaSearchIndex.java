@@ -0,0 +1,299 @@
+package org.moldidev.moldispizza.search;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// names and ingredients split into normalized terms, each term maps to the sorted documents that contain it
+@Component
+public class PizzaSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // a posting is the document number shifted left once, the low bit is set when the term is part of the name
+    private static final int NAME_FIELD = 1;
+
+    private static final int NAME_SCORE = 3;
+    private static final int INGREDIENT_SCORE = 1;
+    private static final int EXACT_TERM_MULTIPLIER = 2;
+    private static final int NAME_PREFIX_BONUS = 10;
+
+    private final Object writeLock = new Object();
+
+    // only touched under the write lock, readers work on the published view
+    private final TreeMap<String, int[]> postingsByTerm = new TreeMap<>();
+    private final Map<Long, Integer> documentsByPizzaId = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Deque<Integer> freeDocuments = new ArrayDeque<>();
+
+    private volatile View view = new View(new String[0], new int[0][], new Document[0]);
+    private volatile long synchronizedGeneration = Long.MIN_VALUE;
+
+    // brings the index in line with a full read of the menu, only pizzas that were added, changed or removed are touched
+    // a read older than the last one applied is skipped, so a slow reader cannot roll the index back
+    public void synchronize(long generation, Supplier<Collection<SearchableDocument>> pizzaLoader) {
+        if (generation <= synchronizedGeneration) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            if (generation <= synchronizedGeneration) {
+                return;
+            }
+
+            synchronizedGeneration = generation;
+
+            Set<Long> pizzaIds = new HashSet<>();
+            boolean changed = false;
+
+            for (SearchableDocument pizza : pizzaLoader.get()) {
+                pizzaIds.add(pizza.pizzaId());
+
+                Integer number = documentsByPizzaId.get(pizza.pizzaId());
+
+                if (number != null && documents.get(number).source().equals(pizza)) {
+                    continue;
+                }
+
+                remove(pizza.pizzaId(), false);
+                add(pizza);
+                changed = true;
+            }
+
+            for (Long pizzaId : List.copyOf(documentsByPizzaId.keySet())) {
+                if (!pizzaIds.contains(pizzaId)) {
+                    remove(pizzaId, false);
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                publish();
+            }
+        }
+    }
+
+    public void index(Long pizzaId, String name, String ingredients) {
+        synchronized (writeLock) {
+            remove(pizzaId, false);
+            add(new SearchableDocument(pizzaId, name, ingredients));
+            publish();
+        }
+    }
+
+    public void remove(Long pizzaId) {
+        synchronized (writeLock) {
+            remove(pizzaId, true);
+        }
+    }
+
+    // a rolled back write must not become searchable, so the index follows the commit
+    public void indexAfterCommit(Long pizzaId, String name, String ingredients) {
+        afterCommit(() -> index(pizzaId, name, ingredients));
+    }
+
+    public void removeAfterCommit(Long pizzaId) {
+        afterCommit(() -> remove(pizzaId));
+    }
+
+    // every query term must match the start of a term, exact terms and name terms rank higher
+    public List<Long> search(String query, int limit) {
+        View current = view;
+        List<String> queryTerms = tokenize(query);
+
+        if (queryTerms.isEmpty() || current.documents().length == 0) {
+            return List.of();
+        }
+
+        int documentCount = current.documents().length;
+        int[] scores = new int[documentCount];
+        int[] matchedTerms = new int[documentCount];
+        int[] termScores = new int[documentCount];
+
+        for (String queryTerm : queryTerms) {
+            Arrays.fill(termScores, 0);
+
+            for (int term = firstTermWithPrefix(current.terms(), queryTerm); term < current.terms().length && current.terms()[term].startsWith(queryTerm); term++) {
+                int multiplier = current.terms()[term].length() == queryTerm.length() ? EXACT_TERM_MULTIPLIER : 1;
+
+                for (int posting : current.postings()[term]) {
+                    int document = posting >>> 1;
+                    int score = ((posting & NAME_FIELD) != 0 ? NAME_SCORE : INGREDIENT_SCORE) * multiplier;
+
+                    termScores[document] = Math.max(termScores[document], score);
+                }
+            }
+
+            for (int document = 0; document < documentCount; document++) {
+                if (termScores[document] > 0) {
+                    scores[document] += termScores[document];
+                    matchedTerms[document]++;
+                }
+            }
+        }
+
+        String normalizedQuery = String.join(" ", queryTerms);
+        List<Document> matches = new ArrayList<>();
+
+        for (int document = 0; document < documentCount; document++) {
+            if (matchedTerms[document] == queryTerms.size()) {
+                Document match = current.documents()[document];
+
+                if (match.normalizedName().startsWith(normalizedQuery)) {
+                    scores[document] += NAME_PREFIX_BONUS;
+                }
+
+                matches.add(match);
+            }
+        }
+
+        return matches
+                .stream()
+                .sorted(Comparator
+                        .comparingInt((Document match) -> scores[match.number()])
+                        .reversed()
+                        .thenComparing(Document::normalizedName))
+                .limit(limit)
+                .map(Document::pizzaId)
+                .toList();
+    }
+
+    private void add(SearchableDocument pizza) {
+        int number = freeDocuments.isEmpty() ? documents.size() : freeDocuments.pop();
+        List<String> nameTerms = tokenize(pizza.name());
+
+        // a term found in both fields only needs the name posting, it scores higher
+        Map<String, Integer> fieldsByTerm = new LinkedHashMap<>();
+        tokenize(pizza.ingredients()).forEach(term -> fieldsByTerm.put(term, 0));
+        nameTerms.forEach(term -> fieldsByTerm.put(term, NAME_FIELD));
+
+        Document document = new Document(number, pizza.pizzaId(), String.join(" ", nameTerms), Set.copyOf(fieldsByTerm.keySet()), pizza);
+
+        if (number == documents.size()) {
+            documents.add(document);
+        }
+
+        else {
+            documents.set(number, document);
+        }
+
+        documentsByPizzaId.put(pizza.pizzaId(), number);
+        fieldsByTerm.forEach((term, field) -> postingsByTerm.put(term, insert(postingsByTerm.get(term), number << 1 | field)));
+    }
+
+    private void remove(Long pizzaId, boolean publish) {
+        Integer number = documentsByPizzaId.remove(pizzaId);
+
+        if (number == null) {
+            return;
+        }
+
+        for (String term : documents.get(number).terms()) {
+            int[] postings = delete(postingsByTerm.get(term), number);
+
+            if (postings.length == 0) {
+                postingsByTerm.remove(term);
+            }
+
+            else {
+                postingsByTerm.put(term, postings);
+            }
+        }
+
+        documents.set(number, null);
+        freeDocuments.push(number);
+
+        if (publish) {
+            publish();
+        }
+    }
+
+    // the posting arrays are never modified after they are published, so the view only copies references
+    private void publish() {
+        String[] terms = postingsByTerm.keySet().toArray(new String[0]);
+        int[][] postings = postingsByTerm.values().toArray(new int[0][]);
+        Document[] published = new Document[documents.size()];
+
+        for (int number = 0; number < published.length; number++) {
+            Document document = documents.get(number);
+            published[number] = document != null ? document : new Document(number, null, "", Set.of(), null);
+        }
+
+        view = new View(terms, postings, published);
+    }
+
+    private static int[] insert(int[] postings, int posting) {
+        if (postings == null) {
+            return new int[] { posting };
+        }
+
+        int position = -Arrays.binarySearch(postings, posting) - 1;
+        int[] result = new int[postings.length + 1];
+
+        System.arraycopy(postings, 0, result, 0, position);
+        result[position] = posting;
+        System.arraycopy(postings, position, result, position + 1, postings.length - position);
+
+        return result;
+    }
+
+    private static int[] delete(int[] postings, int document) {
+        return Arrays
+                .stream(postings)
+                .filter(posting -> posting >>> 1 != document)
+                .toArray();
+    }
+
+    private static int firstTermWithPrefix(String[] terms, String prefix) {
+        int position = Arrays.binarySearch(terms, prefix);
+
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String normalized = DIACRITICS
+                .matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        return Arrays
+                .stream(SEPARATORS.split(normalized))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        }
+
+        else {
+            update.run();
+        }
+    }
+
+    public record SearchableDocument(Long pizzaId, String name, String ingredients) {
+    }
+
+    private record Document(int number, Long pizzaId, String normalizedName, Set<String> terms, SearchableDocument source) {
+    }
+
+    private record View(String[] terms, int[][] postings, Document[] documents) {
+    }
+}
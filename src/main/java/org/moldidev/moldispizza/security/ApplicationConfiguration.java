@@ -2,6 +2,7 @@ package org.moldidev.moldispizza.security;
 
 import lombok.RequiredArgsConstructor;
 import org.moldidev.moldispizza.audit.ApplicationAuditAware;
+import org.moldidev.moldispizza.cache.UserDetailsCache;
 import org.moldidev.moldispizza.exception.ResourceNotFoundException;
 import org.moldidev.moldispizza.repository.UserRepository;
 import org.springframework.context.annotation.Bean;
@@ -12,18 +13,20 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfiguration {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final BoundedPasswordEncoder boundedPasswordEncoder;
+    private final PasswordUpgradeService passwordUpgradeService;
 
     @Bean
     UserDetailsService userDetailsService() {
-        return username -> userRepository.findByUsernameIgnoreCase(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found by username " + username));
+        return username -> userDetailsCache.get(username, key -> userRepository.findByUsernameIgnoreCase(key)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found by username " + key)));
     }
 
     @Bean
@@ -31,11 +34,6 @@ public class ApplicationConfiguration {
         return new ApplicationAuditAware();
     }
 
-    @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
@@ -46,7 +44,8 @@ public class ApplicationConfiguration {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(boundedPasswordEncoder);
+        authProvider.setUserDetailsPasswordService(passwordUpgradeService);
 
         return authProvider;
     }
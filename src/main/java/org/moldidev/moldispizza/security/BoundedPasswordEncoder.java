@@ -0,0 +1,133 @@
+package org.moldidev.moldispizza.security;
+
+import jakarta.annotation.PreDestroy;
+import org.moldidev.moldispizza.dto.PasswordHashingStatisticsDTO;
+import org.moldidev.moldispizza.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder verifyCount = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public BoundedPasswordEncoder(@Value("${security.password.bcrypt-strength}") int strength,
+                                  @Value("${security.password.hashing-queue-capacity}") int queueCapacity) {
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.queueCapacity = queueCapacity;
+
+        // bcrypt is pure cpu work, so more workers than cores only adds contention
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), hashCount, hashNanos);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), verifyCount, verifyNanos);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordHashingStatisticsDTO getStatistics() {
+        return new PasswordHashingStatisticsDTO(
+                hashCount.sum(),
+                averageMillis(hashNanos, hashCount),
+                verifyCount.sum(),
+                averageMillis(verifyNanos, verifyCount),
+                rejectedCount.sum(),
+                executor.getPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task, LongAdder count, LongAdder nanos) {
+        Future<T> future;
+
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+
+                try {
+                    return task.call();
+                }
+
+                finally {
+                    nanos.add(System.nanoTime() - start);
+                    count.increment();
+                }
+            });
+        }
+
+        catch (RejectedExecutionException exception) {
+            rejectedCount.increment();
+            throw new ServiceUnavailableException("The server is busy. Please try again in a moment");
+        }
+
+        try {
+            return future.get();
+        }
+
+        catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("The password hashing was interrupted");
+        }
+
+        catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    private Double averageMillis(LongAdder nanos, LongAdder count) {
+        long total = count.sum();
+
+        return total == 0 ? 0.0 : nanos.sum() / (total * 1_000_000.0);
+    }
+}
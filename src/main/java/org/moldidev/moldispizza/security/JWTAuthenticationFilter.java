@@ -26,6 +26,8 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
     private final HandlerExceptionResolver handlerExceptionResolver;
     private final JWTService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityVersionRegistry securityVersionRegistry;
+    private final TokenDenylist tokenDenylist;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws IOException, ServletException {
@@ -38,14 +40,16 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = authHeader.substring(7);
-            String username = jwtService.extractUsername(jwt);
+            VerifiedToken verifiedToken = jwtService.verify(jwt);
 
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            if (username != null && authentication == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // refresh tokens are only accepted by the refresh endpoint, never as bearer credentials
+            if (verifiedToken.subject() != null && !verifiedToken.isRefreshToken() && authentication == null && !tokenDenylist.isRevoked(verifiedToken)) {
+                UserDetails userDetails = resolvePrincipal(verifiedToken);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                // disabled accounts still pass, an oauth2 sign up holds its tokens while it completes the registration
+                if (verifiedToken.isValidFor(userDetails.getUsername()) && userDetails.isAccountNonLocked()) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -64,4 +68,12 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
             handlerExceptionResolver.resolveException(request, response, null, exception);
         }
     }
+
+    private UserDetails resolvePrincipal(VerifiedToken verifiedToken) {
+        if (verifiedToken.hasPrincipalClaims() && securityVersionRegistry.isCurrent(verifiedToken.userId(), verifiedToken.securityVersion())) {
+            return verifiedToken.toPrincipal();
+        }
+
+        return this.userDetailsService.loadUserByUsername(verifiedToken.subject());
+    }
 }
@@ -0,0 +1,32 @@
+package org.moldidev.moldispizza.security;
+
+import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.cache.UserDetailsCache;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.repository.UserRepository;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@RequiredArgsConstructor
+public class PasswordUpgradeService implements UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+
+    // called by the authentication provider after a successful sign in whose hash uses an outdated cost factor
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePasswordByUsername(userDetails.getUsername(), newPassword);
+        userDetailsCache.evict(userDetails.getUsername());
+
+        if (userDetails instanceof User user) {
+            user.setPassword(newPassword);
+        }
+
+        return userDetails;
+    }
+}
@@ -0,0 +1,240 @@
+package org.moldidev.moldispizza.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+public class RouteAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationManager<RequestAuthorizationContext> PERMIT_ALL = (authentication, context) -> new AuthorizationDecision(true);
+
+    private final Map<String, Node> routesByMethod;
+    private final Node routesForOtherMethods;
+    private final AuthorizationManager<RequestAuthorizationContext> defaultManager;
+
+    private RouteAuthorizationManager(List<Route> routes, AuthorizationManager<RequestAuthorizationContext> defaultManager) {
+        Set<String> methods = new HashSet<>();
+
+        for (Route route : routes) {
+            if (route.method() != null) {
+                methods.add(route.method().name());
+            }
+        }
+
+        Map<String, Node> routesByMethod = new HashMap<>();
+
+        // routes without a method are copied into every method's trie, so one walk sees every candidate
+        for (String method : methods) {
+            Node root = new Node();
+
+            for (Route route : routes) {
+                if (route.method() == null || route.method().name().equals(method)) {
+                    root.insert(route);
+                }
+            }
+
+            root.freeze();
+            routesByMethod.put(method, root);
+        }
+
+        Node routesForOtherMethods = new Node();
+
+        for (Route route : routes) {
+            if (route.method() == null) {
+                routesForOtherMethods.insert(route);
+            }
+        }
+
+        routesForOtherMethods.freeze();
+
+        this.routesByMethod = Map.copyOf(routesByMethod);
+        this.routesForOtherMethods = routesForOtherMethods;
+        this.defaultManager = defaultManager;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return resolve(context.getRequest()).check(authentication, context);
+    }
+
+    AuthorizationManager<RequestAuthorizationContext> resolve(HttpServletRequest request) {
+        Node root = routesByMethod.getOrDefault(request.getMethod(), routesForOtherMethods);
+        PathContainer path = RequestPath.parse(request.getRequestURI(), request.getContextPath()).pathWithinApplication();
+
+        Route route = root.find(path);
+
+        return route != null ? route.manager() : defaultManager;
+    }
+
+    private record Route(int order, HttpMethod method, PathPattern pattern, List<String> literalPrefix, AuthorizationManager<RequestAuthorizationContext> manager) {
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Route[] routes = new Route[0];
+        private final List<Route> pendingRoutes = new ArrayList<>();
+
+        private void insert(Route route) {
+            Node node = this;
+
+            for (String segment : route.literalPrefix()) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+
+            node.pendingRoutes.add(route);
+        }
+
+        private void freeze() {
+            pendingRoutes.sort(Comparator.comparingInt(Route::order));
+            routes = pendingRoutes.toArray(new Route[0]);
+            pendingRoutes.clear();
+            children.values().forEach(Node::freeze);
+        }
+
+        // walks the literal segments of the path and keeps the earliest declared route whose pattern matches
+        private Route find(PathContainer path) {
+            Route best = firstMatch(routes, path, null);
+            Node node = this;
+
+            for (PathContainer.Element element : path.elements()) {
+                if (!(element instanceof PathContainer.PathSegment segment)) {
+                    continue;
+                }
+
+                node = node.children.get(segment.valueToMatch());
+
+                if (node == null) {
+                    break;
+                }
+
+                best = firstMatch(node.routes, path, best);
+            }
+
+            return best;
+        }
+
+        private static Route firstMatch(Route[] routes, PathContainer path, Route best) {
+            for (Route route : routes) {
+                if (best != null && best.order() < route.order()) {
+                    return best;
+                }
+
+                if (route.pattern().matches(path)) {
+                    return route;
+                }
+            }
+
+            return best;
+        }
+    }
+
+    public static final class Builder {
+
+        private final PathPatternParser parser = PathPatternParser.defaultInstance;
+        private final List<Route> routes = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public RouteRule requestMatchers(String... patterns) {
+            return new RouteRule(this, null, patterns);
+        }
+
+        public RouteRule requestMatchers(HttpMethod method, String... patterns) {
+            return new RouteRule(this, method, patterns);
+        }
+
+        public DefaultRule anyRequest() {
+            return new DefaultRule(this);
+        }
+
+        private void add(HttpMethod method, String[] patterns, AuthorizationManager<RequestAuthorizationContext> manager) {
+            for (String pattern : patterns) {
+                routes.add(new Route(routes.size(), method, parser.parse(pattern), literalPrefix(pattern), manager));
+            }
+        }
+
+        private List<String> literalPrefix(String pattern) {
+            List<String> prefix = new ArrayList<>();
+
+            for (String segment : pattern.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+
+                if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                    break;
+                }
+
+                prefix.add(segment);
+            }
+
+            return prefix;
+        }
+    }
+
+    public static final class RouteRule {
+
+        private final Builder builder;
+        private final HttpMethod method;
+        private final String[] patterns;
+
+        private RouteRule(Builder builder, HttpMethod method, String[] patterns) {
+            this.builder = builder;
+            this.method = method;
+            this.patterns = patterns;
+        }
+
+        public Builder permitAll() {
+            builder.add(method, patterns, PERMIT_ALL);
+            return builder;
+        }
+
+        public Builder hasRole(String role) {
+            builder.add(method, patterns, AuthorityAuthorizationManager.hasRole(role));
+            return builder;
+        }
+
+        public Builder hasAnyRole(String... roles) {
+            builder.add(method, patterns, AuthorityAuthorizationManager.hasAnyRole(roles));
+            return builder;
+        }
+    }
+
+    public static final class DefaultRule {
+
+        private final Builder builder;
+
+        private DefaultRule(Builder builder) {
+            this.builder = builder;
+        }
+
+        public RouteAuthorizationManager permitAll() {
+            return new RouteAuthorizationManager(builder.routes, PERMIT_ALL);
+        }
+
+        public RouteAuthorizationManager hasRole(String role) {
+            return new RouteAuthorizationManager(builder.routes, AuthorityAuthorizationManager.hasRole(role));
+        }
+
+        public RouteAuthorizationManager hasAnyRole(String... roles) {
+            return new RouteAuthorizationManager(builder.routes, AuthorityAuthorizationManager.hasAnyRole(roles));
+        }
+    }
+}
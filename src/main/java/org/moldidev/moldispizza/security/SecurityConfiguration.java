@@ -44,62 +44,7 @@ public class SecurityConfiguration {
                 .cors(Customizer.withDefaults())
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
-
-                        .requestMatchers(
-                                "/v2/api-docs",
-                                "/v3/api-docs",
-                                "/v3/api-docs/**",
-                                "/swagger-resources",
-                                "/swagger-resources/**",
-                                "/configuration/ui",
-                                "/configuration/security",
-                                "/swagger-ui/**",
-                                "/webjars/**",
-                                "/swagger-ui.html"
-                        ).permitAll()
-
-                        .requestMatchers(HttpMethod.POST, "/api/v1/authentication/**").permitAll()
-                        .requestMatchers("/oauth2/authorization/**").permitAll()
-
-                        .requestMatchers(HttpMethod.GET, "/api/v1/users/enabled/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.GET, "/api/v1/users/username=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.GET, "/api/v1/users/provider/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/users/complete-registration-oauth2-user/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/users/verify").permitAll()
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/users/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/users/remove-image/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/users/set-image/id=**/image-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.POST, "/api/v1/users/resend-confirmation-email/email=**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/v1/users/send-reset-password-token").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/v1/users/reset-password").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/v1/users/change-password/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-
-                        .requestMatchers(HttpMethod.GET, "/api/v1/pizzas**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/v1/pizzas/id=**").permitAll()
-
-                        .requestMatchers(HttpMethod.GET, "/api/v1/reviews/exists/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.GET, "/api/v1/reviews/pizza-id=**").permitAll()
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/reviews/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.POST, "/api/v1/reviews/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.DELETE, "/api/v1/reviews/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-
-                        .requestMatchers(HttpMethod.GET, "/api/v1/baskets/user-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/baskets/add-pizza/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/baskets/remove-pizza/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-
-                        .requestMatchers(HttpMethod.GET, "/api/v1/orders/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.GET, "/api/v1/orders/exists/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.GET, "/api/v1/orders/user-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.PATCH, "/api/v1/orders/set-paid/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.POST, "/api/v1/orders/user-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-                        .requestMatchers(HttpMethod.POST, "/api/v1/orders/pay-pending-order/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-
-                        .requestMatchers(HttpMethod.GET, "/api/v1/images/user-id=**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/v1/images/pizza-id=**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/v1/images/id=**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/v1/images").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
-
-                        .anyRequest().hasRole("ADMINISTRATOR")
+                        .anyRequest().access(routeAuthorizationManager())
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
@@ -118,6 +63,74 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    // compiled once into a trie keyed by method and literal path segments, first declared match wins
+    @Bean
+    RouteAuthorizationManager routeAuthorizationManager() {
+        return RouteAuthorizationManager
+                .builder()
+                .requestMatchers(
+                        "/v2/api-docs",
+                        "/v3/api-docs",
+                        "/v3/api-docs/**",
+                        "/swagger-resources",
+                        "/swagger-resources/**",
+                        "/configuration/ui",
+                        "/configuration/security",
+                        "/swagger-ui/**",
+                        "/webjars/**",
+                        "/swagger-ui.html"
+                ).permitAll()
+
+                .requestMatchers(HttpMethod.POST, "/api/v1/authentication/**").permitAll()
+                .requestMatchers("/oauth2/authorization/**").permitAll()
+
+                .requestMatchers(HttpMethod.GET, "/api/v1/users/enabled/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.GET, "/api/v1/users/username=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.GET, "/api/v1/users/provider/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/users/complete-registration-oauth2-user/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/users/verify").permitAll()
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/users/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/users/remove-image/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/users/set-image/id=**/image-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.POST, "/api/v1/users/resend-confirmation-email/email=**").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/v1/users/send-reset-password-token").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/v1/users/reset-password").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/v1/users/change-password/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.POST, "/api/v1/users/revoke-tokens/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+
+                .requestMatchers(HttpMethod.GET, "/api/v1/pizzas**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/pizzas/id=**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/pizzas/search").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/pizzas/top-sellers").permitAll()
+
+                .requestMatchers(HttpMethod.GET, "/api/v1/reviews/exists/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.GET, "/api/v1/reviews/pizza-id=**").permitAll()
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/reviews/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.POST, "/api/v1/reviews/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.DELETE, "/api/v1/reviews/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+
+                .requestMatchers(HttpMethod.GET, "/api/v1/baskets/user-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/baskets/add-pizza/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/baskets/remove-pizza/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+
+                .requestMatchers(HttpMethod.GET, "/api/v1/orders/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.GET, "/api/v1/orders/exists/user-id=**/pizza-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.GET, "/api/v1/orders/user-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.PATCH, "/api/v1/orders/set-paid/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.POST, "/api/v1/orders/user-id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+                .requestMatchers(HttpMethod.POST, "/api/v1/orders/pay-pending-order/id=**").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+
+                .requestMatchers(HttpMethod.GET, "/api/v1/images/user-id=**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/images/pizza-id=**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/images/id=**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/images/raw/id=**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/images/batch/pizza-id=**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/images/batch/ids=**").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/v1/images").hasAnyRole("CUSTOMER", "ADMINISTRATOR")
+
+                .anyRequest().hasRole("ADMINISTRATOR");
+    }
+
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,73 @@
+package org.moldidev.moldispizza.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// versions advanced on another instance are only seen here once the local entry expires,
+// so the time to live is the longest a token keeps working on this node after a password, role or status change
+@Component
+public class SecurityVersionRegistry {
+
+    private static final Long UNKNOWN_USER_VERSION = -1L;
+
+    private final UserRepository userRepository;
+
+    private final Cache<Long, Long> versions;
+
+    public SecurityVersionRegistry(UserRepository userRepository,
+                                   @Value("${security.version-cache.maximum-size}") long maximumSize,
+                                   @Value("${security.version-cache.time-to-live-seconds}") long timeToLiveSeconds) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine
+                .newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(timeToLiveSeconds))
+                .build();
+    }
+
+    public boolean isCurrent(Long userId, Long securityVersion) {
+        if (userId == null || securityVersion == null) {
+            return false;
+        }
+
+        Long currentVersion = versions.get(userId, id -> userRepository.findSecurityVersionByUserId(id)
+                .orElse(UNKNOWN_USER_VERSION));
+
+        return currentVersion.equals(securityVersion);
+    }
+
+    public void advance(User user) {
+        long nextVersion = user.getSecurityVersion() + 1;
+        Long userId = user.getUserId();
+
+        user.setSecurityVersion(nextVersion);
+
+        runAfterCommit(() -> versions.put(userId, nextVersion));
+    }
+
+    public void forget(Long userId) {
+        runAfterCommit(() -> versions.invalidate(userId));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
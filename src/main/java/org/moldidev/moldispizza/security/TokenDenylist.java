@@ -0,0 +1,107 @@
+package org.moldidev.moldispizza.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class TokenDenylist {
+
+    public static final long MAXIMUM_TOKEN_LIFETIME_SECONDS = 60L * 60 * 24 * 30; // 30 days = the remember me token
+
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private volatile Snapshot snapshot;
+
+    public TokenDenylist(@Value("${security.token-denylist.expected-insertions}") long expectedInsertions,
+                         @Value("${security.token-denylist.false-positive-probability}") double falsePositiveProbability) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.snapshot = new Snapshot(new BloomFilter(expectedInsertions, falsePositiveProbability), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Snapshot current = snapshot;
+        String tokenId = token.tokenId();
+
+        // the bloom filter answers almost every lookup on its own, the exact map only confirms its positives
+        if (tokenId != null && current.bloomFilter().mightContain(tokenId) && current.revokedTokens().containsKey(tokenId)) {
+            return true;
+        }
+
+        if (current.cutoffs().isEmpty() || token.subject() == null) {
+            return false;
+        }
+
+        // cutoffs are kept in milliseconds, so a sign in right after a revoke all in the same second keeps its tokens
+        Long cutoff = current.cutoffs().get(normalize(token.subject()));
+        Long issuedAtMillis = token.issuedAtMillis();
+
+        return cutoff != null && (issuedAtMillis == null || issuedAtMillis < cutoff);
+    }
+
+    public void revoke(String tokenId, long expiresAtEpochSecond) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                snapshot.revokedTokens().put(tokenId, expiresAtEpochSecond);
+                snapshot.bloomFilter().put(tokenId);
+            }
+        });
+    }
+
+    public void revokeAllIssuedBefore(String username, long cutoffEpochMilli) {
+        runAfterCommit(() -> {
+            synchronized (this) {
+                snapshot.cutoffs().merge(normalize(username), cutoffEpochMilli, Math::max);
+            }
+        });
+    }
+
+    // entries added since the last rebuild are kept, so a revocation committed while the database was being read is not lost
+    public synchronized void rebuild(Map<String, Long> revokedTokens, Map<String, Long> cutoffs) {
+        long now = System.currentTimeMillis() / 1000;
+        Snapshot previous = snapshot;
+
+        Map<String, Long> nextRevokedTokens = new ConcurrentHashMap<>(revokedTokens);
+        Map<String, Long> nextCutoffs = new ConcurrentHashMap<>();
+
+        previous.revokedTokens().forEach((tokenId, expiresAt) -> nextRevokedTokens.merge(tokenId, expiresAt, Math::max));
+        nextRevokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+
+        cutoffs.forEach((username, cutoff) -> nextCutoffs.merge(normalize(username), cutoff, Math::max));
+        previous.cutoffs().forEach((username, cutoff) -> nextCutoffs.merge(username, cutoff, Math::max));
+        nextCutoffs.values().removeIf(cutoff -> cutoff / 1000 + MAXIMUM_TOKEN_LIFETIME_SECONDS < now);
+
+        BloomFilter bloomFilter = new BloomFilter(Math.max(expectedInsertions, nextRevokedTokens.size() * 2L), falsePositiveProbability);
+        nextRevokedTokens.keySet().forEach(bloomFilter::put);
+
+        snapshot = new Snapshot(bloomFilter, nextRevokedTokens, nextCutoffs);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private record Snapshot(BloomFilter bloomFilter, Map<String, Long> revokedTokens, Map<String, Long> cutoffs) {
+    }
+}
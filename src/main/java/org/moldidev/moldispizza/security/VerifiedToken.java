@@ -0,0 +1,79 @@
+package org.moldidev.moldispizza.security;
+
+import io.jsonwebtoken.Claims;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.enumeration.Role;
+
+import java.util.Date;
+
+public record VerifiedToken(String subject,
+                            Date expiration,
+                            Claims claims) {
+
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String ROLE_CLAIM = "role";
+    public static final String ENABLED_CLAIM = "enabled";
+    public static final String LOCKED_CLAIM = "locked";
+    public static final String SECURITY_VERSION_CLAIM = "securityVersion";
+    public static final String TOKEN_TYPE_CLAIM = "tokenType";
+    public static final String ISSUED_AT_MILLIS_CLAIM = "issuedAtMillis";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    public boolean isValidFor(String username) {
+        return subject != null && subject.equals(username) && expiration.after(new Date());
+    }
+
+    public String tokenId() {
+        return claims.getId();
+    }
+
+    public Date issuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    // the standard iat claim only keeps whole seconds, tokens issued before the millisecond claim fall back to it
+    public Long issuedAtMillis() {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+
+        if (issuedAtMillis != null) {
+            return issuedAtMillis;
+        }
+
+        Date issuedAt = issuedAt();
+
+        return issuedAt != null ? issuedAt.getTime() : null;
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
+    }
+
+    public Long userId() {
+        return claims.get(USER_ID_CLAIM, Long.class);
+    }
+
+    public Long securityVersion() {
+        return claims.get(SECURITY_VERSION_CLAIM, Long.class);
+    }
+
+    public boolean hasPrincipalClaims() {
+        return claims.containsKey(USER_ID_CLAIM)
+                && claims.containsKey(ROLE_CLAIM)
+                && claims.containsKey(ENABLED_CLAIM)
+                && claims.containsKey(LOCKED_CLAIM)
+                && claims.containsKey(SECURITY_VERSION_CLAIM);
+    }
+
+    public User toPrincipal() {
+        User user = new User();
+
+        user.setUserId(userId());
+        user.setUsername(subject);
+        user.setRole(Role.valueOf(claims.get(ROLE_CLAIM, String.class)));
+        user.setIsEnabled(claims.get(ENABLED_CLAIM, Boolean.class));
+        user.setIsLocked(claims.get(LOCKED_CLAIM, Boolean.class));
+        user.setSecurityVersion(securityVersion());
+
+        return user;
+    }
+}
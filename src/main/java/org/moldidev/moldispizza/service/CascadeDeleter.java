@@ -0,0 +1,256 @@
+package org.moldidev.moldispizza.service;
+
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.cache.UserDetailsCache;
+import org.moldidev.moldispizza.dto.PizzaSaleDTO;
+import org.moldidev.moldispizza.entity.DeletionJob;
+import org.moldidev.moldispizza.entity.Image;
+import org.moldidev.moldispizza.entity.Pizza;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.enumeration.DeletionJobStatus;
+import org.moldidev.moldispizza.enumeration.DeletionJobStep;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
+import org.moldidev.moldispizza.enumeration.OrderStatus;
+import org.moldidev.moldispizza.repository.*;
+import org.moldidev.moldispizza.search.PizzaSearchIndex;
+import org.moldidev.moldispizza.security.SecurityVersionRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// every call is one transaction that deletes at most one chunk and records the progress with it
+@Service
+@Transactional
+public class CascadeDeleter {
+
+    private final DeletionJobRepository deletionJobRepository;
+    private final ReviewRepository reviewRepository;
+    private final OrderRepository orderRepository;
+    private final BasketRepository basketRepository;
+    private final BasketItemRepository basketItemRepository;
+    private final PizzaRepository pizzaRepository;
+    private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final ImageRepository imageRepository;
+    private final ImageService imageService;
+    private final PizzaCatalogCache pizzaCatalogCache;
+    private final PizzaSearchIndex pizzaSearchIndex;
+    private final PizzaSalesRecorder pizzaSalesRecorder;
+    private final SecurityVersionRegistry securityVersionRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final int chunkSize;
+
+    public CascadeDeleter(DeletionJobRepository deletionJobRepository,
+                          ReviewRepository reviewRepository,
+                          OrderRepository orderRepository,
+                          BasketRepository basketRepository,
+                          BasketItemRepository basketItemRepository,
+                          PizzaRepository pizzaRepository,
+                          UserRepository userRepository,
+                          RefreshTokenRepository refreshTokenRepository,
+                          ImageRepository imageRepository,
+                          ImageService imageService,
+                          PizzaCatalogCache pizzaCatalogCache,
+                          PizzaSearchIndex pizzaSearchIndex,
+                          PizzaSalesRecorder pizzaSalesRecorder,
+                          SecurityVersionRegistry securityVersionRegistry,
+                          UserDetailsCache userDetailsCache,
+                          @Value("${deletion.chunk-size}") int chunkSize) {
+        this.deletionJobRepository = deletionJobRepository;
+        this.reviewRepository = reviewRepository;
+        this.orderRepository = orderRepository;
+        this.basketRepository = basketRepository;
+        this.basketItemRepository = basketItemRepository;
+        this.pizzaRepository = pizzaRepository;
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.imageRepository = imageRepository;
+        this.imageService = imageService;
+        this.pizzaCatalogCache = pizzaCatalogCache;
+        this.pizzaSearchIndex = pizzaSearchIndex;
+        this.pizzaSalesRecorder = pizzaSalesRecorder;
+        this.securityVersionRegistry = securityVersionRegistry;
+        this.userDetailsCache = userDetailsCache;
+        this.chunkSize = chunkSize;
+    }
+
+    // returns whether the job has more work left
+    public boolean deleteNextChunk(UUID jobId) {
+        DeletionJob job = deletionJobRepository.findWithLockByJobId(jobId).orElse(null);
+
+        if (job == null || job.getStatus() != DeletionJobStatus.RUNNING) {
+            return false;
+        }
+
+        switch (job.getStep()) {
+            case REVIEWS -> {
+                if (deleteReviews(job) == 0) {
+                    job.setStep(DeletionJobStep.ORDERS);
+                }
+            }
+
+            case ORDERS -> {
+                if (deleteOrders(job) == 0) {
+                    job.setStep(DeletionJobStep.BASKETS);
+                }
+            }
+
+            case BASKETS -> {
+                if (unlinkBaskets(job) == 0) {
+                    job.setStep(DeletionJobStep.TARGET);
+                }
+            }
+
+            case TARGET -> deleteTarget(job);
+        }
+
+        deletionJobRepository.save(job);
+
+        return job.getStatus() == DeletionJobStatus.RUNNING;
+    }
+
+    // the target stays in place, so it is shown again and the same delete request starts over where this one failed
+    public void fail(UUID jobId, String error) {
+        deletionJobRepository.findWithLockByJobId(jobId).ifPresent(job -> {
+            if (job.getStatus() != DeletionJobStatus.RUNNING) {
+                return;
+            }
+
+            job.setStatus(DeletionJobStatus.FAILED);
+            job.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            job.setCompletedDate(LocalDateTime.now());
+            deletionJobRepository.save(job);
+
+            if (job.getTarget() == DeletionTarget.PIZZA) {
+                pizzaRepository.findById(job.getTargetId()).ifPresent(pizza -> {
+                    pizzaCatalogCache.invalidate(pizza.getPizzaId());
+                    pizzaSearchIndex.indexAfterCommit(pizza.getPizzaId(), pizza.getName(), pizza.getIngredients());
+                });
+            }
+        });
+    }
+
+    private int deleteReviews(DeletionJob job) {
+        List<Long> reviewIds = job.getTarget() == DeletionTarget.PIZZA
+                ? reviewRepository.findChunkIdsByPizzaId(job.getTargetId(), chunkSize)
+                : reviewRepository.findChunkIdsByUserId(job.getTargetId(), chunkSize);
+
+        if (reviewIds.isEmpty()) {
+            return 0;
+        }
+
+        reviewRepository.deleteAllByReviewIdInAndReleaseRatings(reviewIds);
+        job.setDeletedReviews(job.getDeletedReviews() + reviewIds.size());
+
+        // cached pizzas embed their rating, a user's reviews can be spread over the whole menu
+        if (job.getTarget() == DeletionTarget.PIZZA) {
+            pizzaCatalogCache.invalidate(job.getTargetId());
+        }
+
+        else {
+            pizzaCatalogCache.invalidate();
+        }
+
+        return reviewIds.size();
+    }
+
+    private int deleteOrders(DeletionJob job) {
+        List<UUID> orderIds = job.getTarget() == DeletionTarget.PIZZA
+                ? orderRepository.findChunkIdsByPizzaId(job.getTargetId(), chunkSize)
+                : orderRepository.findChunkIdsByUserId(job.getTargetId(), chunkSize);
+
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        List<OrderStatus> soldStatuses = Arrays
+                .stream(OrderStatus.values())
+                .filter(OrderStatus::isSold)
+                .toList();
+
+        // sold orders leave the sales ranking in the bucket they were counted in
+        List<PizzaSaleDTO> sales = orderRepository.findAllSalesByOrderIdInAndStatusIn(orderIds, soldStatuses);
+
+        orderRepository.deletePizzaLinksByOrderIdIn(orderIds);
+        orderRepository.deleteAllByOrderIdIn(orderIds);
+
+        pizzaSalesRecorder.record(sales, -1);
+        job.setDeletedOrders(job.getDeletedOrders() + orderIds.size());
+
+        return orderIds.size();
+    }
+
+    // a user's own basket goes with the user, only a pizza has to be taken out of other people's baskets
+    private int unlinkBaskets(DeletionJob job) {
+        if (job.getTarget() != DeletionTarget.PIZZA) {
+            return 0;
+        }
+
+        List<Long> basketIds = basketItemRepository.findChunkBasketIdsByPizzaId(job.getTargetId(), chunkSize);
+
+        if (basketIds.isEmpty()) {
+            return 0;
+        }
+
+        basketItemRepository.removePizzaByBasketIdIn(basketIds, job.getTargetId());
+        job.setUpdatedBaskets(job.getUpdatedBaskets() + basketIds.size());
+
+        return basketIds.size();
+    }
+
+    // rows that were added while the job ran send it back to the first step, the target only goes once nothing references it
+    private void deleteTarget(DeletionJob job) {
+        if (hasDependents(job)) {
+            job.setStep(DeletionJobStep.REVIEWS);
+            return;
+        }
+
+        if (job.getTarget() == DeletionTarget.PIZZA) {
+            pizzaRepository.findById(job.getTargetId()).ifPresent(this::deletePizza);
+        }
+
+        else {
+            userRepository.findById(job.getTargetId()).ifPresent(this::deleteUser);
+        }
+
+        job.setStatus(DeletionJobStatus.COMPLETED);
+        job.setCompletedDate(LocalDateTime.now());
+    }
+
+    private boolean hasDependents(DeletionJob job) {
+        if (job.getTarget() == DeletionTarget.PIZZA) {
+            return !reviewRepository.findChunkIdsByPizzaId(job.getTargetId(), 1).isEmpty()
+                    || !orderRepository.findChunkIdsByPizzaId(job.getTargetId(), 1).isEmpty()
+                    || !basketItemRepository.findChunkBasketIdsByPizzaId(job.getTargetId(), 1).isEmpty();
+        }
+
+        return !reviewRepository.findChunkIdsByUserId(job.getTargetId(), 1).isEmpty()
+                || !orderRepository.findChunkIdsByUserId(job.getTargetId(), 1).isEmpty();
+    }
+
+    private void deletePizza(Pizza pizza) {
+        List<Image> images = new ArrayList<>(pizza.getImages());
+
+        pizzaRepository.delete(pizza);
+        pizzaCatalogCache.invalidate(pizza.getPizzaId());
+        pizzaSearchIndex.removeAfterCommit(pizza.getPizzaId());
+        images.forEach(imageService::release);
+    }
+
+    private void deleteUser(User user) {
+        Optional<Image> image = imageRepository.findByUserId(user.getUserId());
+
+        basketRepository.findBasketIdByUserId(user.getUserId()).ifPresent(basketId -> {
+            basketItemRepository.deleteAllByBasketId(basketId);
+            basketRepository.deleteById(basketId);
+        });
+        refreshTokenRepository.deleteAllByUserId(user.getUserId());
+        userRepository.delete(user);
+        image.ifPresent(imageService::release);
+        securityVersionRegistry.forget(user.getUserId());
+        userDetailsCache.evict(user.getUsername());
+    }
+}
@@ -0,0 +1,121 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
+import org.moldidev.moldispizza.entity.DeletionJob;
+import org.moldidev.moldispizza.enumeration.DeletionJobStatus;
+import org.moldidev.moldispizza.enumeration.DeletionJobStep;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
+import org.moldidev.moldispizza.exception.ResourceNotFoundException;
+import org.moldidev.moldispizza.mapper.DeletionJobDTOMapper;
+import org.moldidev.moldispizza.repository.DeletionJobRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// the request only records the job, the chunks run on the deletion executor once that record is committed
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeletionJobRunner {
+
+    private final DeletionJobRepository deletionJobRepository;
+    private final DeletionJobDTOMapper deletionJobDTOMapper;
+    private final CascadeDeleter cascadeDeleter;
+    private final TaskExecutor deletionExecutor;
+
+    private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+
+    // asking twice for the same target returns the job that is already running, even when both requests arrive together
+    @Transactional
+    public DeletionJobDTO submit(DeletionTarget target, Long targetId) {
+        deletionJobRepository.lockTarget(target.name(), targetId);
+
+        DeletionJob job = deletionJobRepository.findFirstByTargetAndTargetIdAndStatus(target, targetId, DeletionJobStatus.RUNNING)
+                .orElseGet(() -> {
+                    DeletionJob newJob = new DeletionJob();
+
+                    newJob.setTarget(target);
+                    newJob.setTargetId(targetId);
+                    newJob.setStatus(DeletionJobStatus.RUNNING);
+                    newJob.setStep(DeletionJobStep.REVIEWS);
+
+                    return deletionJobRepository.save(newJob);
+                });
+
+        UUID jobId = job.getJobId();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    start(jobId);
+                }
+            });
+        }
+
+        else {
+            start(jobId);
+        }
+
+        return deletionJobDTOMapper.apply(job);
+    }
+
+    public DeletionJobDTO findById(UUID jobId) {
+        DeletionJob foundJob = deletionJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("The deletion job by the provided id doesn't exist"));
+
+        return deletionJobDTOMapper.apply(foundJob);
+    }
+
+    // jobs interrupted by a shutdown continue from their last committed chunk
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        deletionJobRepository.findAllByStatus(DeletionJobStatus.RUNNING)
+                .forEach(job -> start(job.getJobId()));
+    }
+
+    private void start(UUID jobId) {
+        if (!activeJobs.add(jobId)) {
+            return;
+        }
+
+        try {
+            deletionExecutor.execute(() -> run(jobId));
+        }
+
+        catch (TaskRejectedException e) {
+            activeJobs.remove(jobId);
+            log.warn("Deletion job {} could not be started, it is resumed at the next startup: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void run(UUID jobId) {
+        try {
+            boolean hasMoreWork = true;
+
+            while (hasMoreWork) {
+                hasMoreWork = cascadeDeleter.deleteNextChunk(jobId);
+            }
+        }
+
+        catch (RuntimeException e) {
+            log.warn("Deletion job {} failed: {}", jobId, e.getMessage());
+            cascadeDeleter.fail(jobId, e.getMessage());
+        }
+
+        finally {
+            activeJobs.remove(jobId);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+// the backfill reads every unhashed file from storage, so it runs off the startup thread and never fails the start
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageContentHashBackfiller {
+
+    private final ImageService imageService;
+    private final TaskExecutor imageStorageExecutor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        imageStorageExecutor.execute(() -> {
+            try {
+                imageService.backfillContentHashes();
+            }
+
+            catch (Exception exception) {
+                log.warn("The image content hash backfill did not complete: {}", exception.getMessage());
+            }
+        });
+    }
+}
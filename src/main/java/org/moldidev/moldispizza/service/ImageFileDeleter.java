@@ -0,0 +1,44 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.repository.ImageRepository;
+import org.moldidev.moldispizza.storage.ImageStorage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.List;
+
+// an upload of the same content locks the same key before it looks for an existing row and keeps it until it commits,
+// so the files are only removed once no row holds the key, re-checked under that lock
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageFileDeleter {
+
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+
+    // called once the transaction that released the image has completed, so it needs a transaction of its own
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void deleteUnreferenced(String key, List<String> urls) {
+        imageRepository.lockKey(key);
+
+        if (imageRepository.existsByUrl(key)) {
+            return;
+        }
+
+        // the database change has already committed, a file left behind is reclaimed by the garbage collector
+        for (String url : urls) {
+            try {
+                imageStorage.delete(url);
+            }
+
+            catch (IOException | RuntimeException e) {
+                log.warn("Could not delete the image file {}: {}", url, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.dto.ImageGarbageCollectionReportDTO;
+import org.moldidev.moldispizza.repository.ImageRepository;
+import org.moldidev.moldispizza.storage.ImageStorage;
+import org.moldidev.moldispizza.storage.StorageEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// walks the storage listing and the image keys side by side, both sorted, so neither is ever held in memory
+@Slf4j
+@Service
+public class ImageGarbageCollector {
+
+    private static final int MAXIMUM_REPORTED_KEYS = 100;
+
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final Duration gracePeriod;
+
+    private volatile ImageGarbageCollectionReportDTO lastReport;
+
+    public ImageGarbageCollector(ImageRepository imageRepository,
+                                 ImageStorage imageStorage,
+                                 @Value("${storage.garbage-collection.grace-period-minutes}") long gracePeriodMinutes) {
+        this.imageRepository = imageRepository;
+        this.imageStorage = imageStorage;
+        this.gracePeriod = Duration.ofMinutes(gracePeriodMinutes);
+    }
+
+    // an object younger than the grace period may belong to an upload whose row is not committed yet
+    // every node schedules it, the advisory lock lets only one of them walk the storage at a time
+    @Scheduled(initialDelayString = "${storage.garbage-collection.interval-milliseconds}", fixedDelayString = "${storage.garbage-collection.interval-milliseconds}")
+    @Transactional(readOnly = true)
+    public void collect() {
+        if (!imageRepository.tryLockGarbageCollection()) {
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        Instant orphanCutoff = Instant.now().minus(gracePeriod);
+
+        long scannedObjects = 0;
+        long scannedRows = 0;
+        long deletedOrphans = 0;
+        long pendingOrphans = 0;
+        long danglingRows = 0;
+        List<String> danglingKeys = new ArrayList<>();
+
+        try (Stream<StorageEntry> objects = imageStorage.list(); Stream<String> keys = imageRepository.streamAllKeysOrderByKey()) {
+            Iterator<StorageEntry> objectIterator = objects.iterator();
+            Iterator<String> keyIterator = keys.iterator();
+
+            StorageEntry object = objectIterator.hasNext() ? objectIterator.next() : null;
+            String key = keyIterator.hasNext() ? keyIterator.next() : null;
+
+            while (object != null || key != null) {
+                int comparison = object == null ? 1 : key == null ? -1 : object.key().compareTo(key);
+
+                if (comparison < 0) {
+                    scannedObjects++;
+
+                    if (object.lastModified().isBefore(orphanCutoff)) {
+                        imageStorage.delete(object.key());
+                        deletedOrphans++;
+                    }
+
+                    else {
+                        pendingOrphans++;
+                    }
+
+                    object = objectIterator.hasNext() ? objectIterator.next() : null;
+                    continue;
+                }
+
+                if (comparison > 0) {
+                    danglingRows++;
+
+                    if (danglingKeys.size() < MAXIMUM_REPORTED_KEYS) {
+                        danglingKeys.add(key);
+                    }
+                }
+
+                else {
+                    scannedObjects++;
+                    object = objectIterator.hasNext() ? objectIterator.next() : null;
+                }
+
+                String previousKey = key;
+                scannedRows++;
+
+                // the same key can show up once per row that holds it
+                do {
+                    key = keyIterator.hasNext() ? keyIterator.next() : null;
+                } while (key != null && key.equals(previousKey));
+            }
+        }
+
+        catch (IOException | RuntimeException e) {
+            log.warn("Image garbage collection stopped early: {}", e.getMessage());
+        }
+
+        lastReport = new ImageGarbageCollectionReportDTO(
+                startedAt,
+                LocalDateTime.now(),
+                scannedObjects,
+                scannedRows,
+                deletedOrphans,
+                pendingOrphans,
+                danglingRows,
+                List.copyOf(danglingKeys)
+        );
+
+        if (deletedOrphans > 0 || danglingRows > 0) {
+            log.warn("Image garbage collection deleted {} orphaned objects, {} image rows point at missing objects: {}", deletedOrphans, danglingRows, danglingKeys);
+        }
+    }
+
+    public ImageGarbageCollectionReportDTO getLastReport() {
+        return lastReport;
+    }
+}
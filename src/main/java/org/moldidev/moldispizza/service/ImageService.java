@@ -1,6 +1,9 @@
 package org.moldidev.moldispizza.service;
 
+import org.moldidev.moldispizza.dto.ImageContentDTO;
 import org.moldidev.moldispizza.dto.ImageDTO;
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
 import org.moldidev.moldispizza.entity.Image;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
@@ -13,14 +16,25 @@ import java.util.List;
 @Transactional
 public interface ImageService {
     ImageDTO save(MultipartFile image);
+    List<ImageDTO> saveAll(List<MultipartFile> images);
 
     String findById(Long imageId);
     String findByUrl(String url);
     String findByUserId(Long userId);
+    ImageContentDTO findContentById(Long imageId, String variant);
+    List<ImageContentDTO> findAllContentByPizzaId(Long pizzaId, String variant);
+    List<ImageContentDTO> findAllContentByIds(List<Long> imageIds, String variant);
     Page<ImageDTO> findAll(int page, int size);
     Page<ImageDTO> findAllByType(String type, int page, int size);
+    KeysetPageDTO<ImageDTO> findAllAfter(String cursor, int size);
+    KeysetPageDTO<ImageDTO> findAllByTypeAfter(String type, String cursor, int size);
     List<ImageDTO> findAllByPizzaId(Long pizzaId);
 
-    void delete(Image image);
+    ResourceVersionDTO findVersionById(Long imageId);
+    ResourceVersionDTO findVersionByUserId(Long userId);
+
+    void backfillContentHashes();
+
+    void release(Image image);
     void deleteById(Long imageId);
 }
@@ -0,0 +1,281 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.entity.Image;
+import org.moldidev.moldispizza.entity.ImageVariant;
+import org.moldidev.moldispizza.repository.ImageRepository;
+import org.moldidev.moldispizza.storage.ImageStorage;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageVariantGenerator {
+
+    public static final String VARIANT_TYPE = "image/jpeg";
+
+    // name and bounding width, smallest first
+    private static final List<VariantSpecification> VARIANTS = List.of(
+            new VariantSpecification("thumbnail", 160),
+            new VariantSpecification("small", 480),
+            new VariantSpecification("medium", 960)
+    );
+
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final long MAXIMUM_SOURCE_PIXELS = 50_000_000L;
+
+    private final ImageRepository imageRepository;
+    private final TaskExecutor imageProcessingExecutor;
+    private final ImageStorage imageStorage;
+    private final PizzaCatalogCache pizzaCatalogCache;
+
+    private final Set<Long> queuedImageIds = ConcurrentHashMap.newKeySet();
+
+    // the image row and its content only become visible to the worker once the upload transaction commits
+    public void generateAfterCommit(Image image) {
+        Long imageId = image.getImageId();
+        String key = image.getUrl();
+
+        Runnable task = () -> enqueue(imageId, key);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    public static List<String> variantNames() {
+        return VARIANTS
+                .stream()
+                .map(VariantSpecification::name)
+                .toList();
+    }
+
+    public static List<String> variantUrls(Image image) {
+        return image.getVariants()
+                .stream()
+                .map(ImageVariant::getUrl)
+                .toList();
+    }
+
+    // the sweep finds images that are still waiting in the queue, each one is only queued once per node
+    private void enqueue(Long imageId, String key) {
+        if (!queuedImageIds.add(imageId)) {
+            return;
+        }
+
+        try {
+            imageProcessingExecutor.execute(() -> {
+                try {
+                    generate(imageId, key);
+                }
+
+                finally {
+                    queuedImageIds.remove(imageId);
+                }
+            });
+        }
+
+        catch (TaskRejectedException e) {
+            queuedImageIds.remove(imageId);
+            log.warn("The variants of image {} could not be queued, the next sweep retries them: {}", imageId, e.getMessage());
+        }
+    }
+
+    private void generate(Long imageId, String key) {
+        try {
+            List<ImageVariant> variants = render(key);
+
+            if (variants.isEmpty()) {
+                return;
+            }
+
+            imageRepository.findById(imageId).ifPresent(image -> {
+                // a collection change alone does not move the audit date, and the conditional GET validators are built from it
+                image.setVariants(variants);
+                image.setLastModifiedDate(LocalDateTime.now());
+                imageRepository.save(image);
+
+                // cached pizzas embed the image with its variant list
+                pizzaCatalogCache.invalidate();
+            });
+        }
+
+        catch (Exception exception) {
+            log.warn("Could not generate the variants of image {}: {}", imageId, exception.getMessage());
+        }
+    }
+
+    private List<ImageVariant> render(String key) throws IOException {
+        BufferedImage original = read(key);
+
+        if (original == null) {
+            return List.of();
+        }
+
+        List<ImageVariant> variants = new ArrayList<>();
+
+        for (VariantSpecification specification : VARIANTS) {
+            // never upscale, the original is already the best copy at that size
+            if (original.getWidth() <= specification.width() && !variants.isEmpty()) {
+                break;
+            }
+
+            int width = Math.min(specification.width(), original.getWidth());
+            int height = Math.max(1, Math.round((float) original.getHeight() * width / original.getWidth()));
+
+            BufferedImage resized = resize(original, width, height);
+            String variantKey = key + "-" + specification.name() + ".jpg";
+            long sizeInBytes = writeJpeg(resized, variantKey);
+
+            ImageVariant variant = new ImageVariant();
+
+            variant.setName(specification.name());
+            variant.setUrl(variantKey);
+            variant.setType(VARIANT_TYPE);
+            variant.setWidth(width);
+            variant.setHeight(height);
+            variant.setSizeInBytes(sizeInBytes);
+
+            variants.add(variant);
+        }
+
+        return variants;
+    }
+
+    // decodes with source subsampling so a large photo is never fully expanded in memory
+    private BufferedImage read(String key) throws IOException {
+        try (InputStream content = imageStorage.get(key).resource().getInputStream();
+             ImageInputStream inputStream = ImageIO.createImageInputStream(content)) {
+            if (inputStream == null) {
+                return null;
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(inputStream, true, true);
+
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                if ((long) width * height > MAXIMUM_SOURCE_PIXELS) {
+                    return null;
+                }
+
+                int largestWidth = VARIANTS.get(VARIANTS.size() - 1).width();
+                int subsampling = Math.max(1, width / (largestWidth * 2));
+
+                ImageReadParam parameters = reader.getDefaultReadParam();
+                parameters.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+                return reader.read(0, parameters);
+            }
+
+            finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // halves the image until it is close to the target so the bilinear pass does not alias
+    private BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+        }
+
+        return draw(current, width, height);
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        }
+
+        finally {
+            graphics.dispose();
+        }
+
+        return target;
+    }
+
+    // the variant is written from a fresh raster without metadata, so exif and color profiles of the upload are dropped
+    private long writeJpeg(BufferedImage image, String key) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temporaryFile = Files.createTempFile("variant-", ".jpg");
+
+        try (ImageOutputStream outputStream = ImageIO.createImageOutputStream(temporaryFile.toFile())) {
+            ImageWriteParam parameters = writer.getDefaultWriteParam();
+
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(JPEG_QUALITY);
+            parameters.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+            writer.setOutput(outputStream);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        }
+
+        finally {
+            writer.dispose();
+        }
+
+        try (InputStream inputStream = Files.newInputStream(temporaryFile)) {
+            long sizeInBytes = Files.size(temporaryFile);
+
+            imageStorage.put(key, inputStream, sizeInBytes, VARIANT_TYPE);
+
+            return sizeInBytes;
+        }
+
+        finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private record VariantSpecification(String name, int width) {
+    }
+}
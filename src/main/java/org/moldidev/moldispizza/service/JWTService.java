@@ -1,10 +1,13 @@
 package org.moldidev.moldispizza.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.security.VerifiedToken;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,24 +16,62 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JWTService {
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+
+    private final Key signInKey;
+    private final JwtParser jwtParser;
+
+    public JWTService(@Value("${security.jwt.secret-key}") String secretKey) {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+
+        this.signInKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
+
+    public VerifiedToken verify(String token) {
+        Claims claims = jwtParser
+                .parseClaimsJws(token)
+                .getBody();
+
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration(), claims);
+    }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verify(token).claims());
     }
 
     public String generateToken(UserDetails userDetails, long jwtExpiration) {
-        return generateToken(new HashMap<>(), userDetails, jwtExpiration);
+        return generateToken(principalClaims(userDetails), userDetails, jwtExpiration);
+    }
+
+    public String generateRefreshToken(User user, UUID tokenId, Date expiration) {
+        Map<String, Object> claims = new HashMap<>();
+        long now = System.currentTimeMillis();
+
+        claims.put(VerifiedToken.USER_ID_CLAIM, user.getUserId());
+        claims.put(VerifiedToken.TOKEN_TYPE_CLAIM, VerifiedToken.REFRESH_TOKEN_TYPE);
+        claims.put(VerifiedToken.ISSUED_AT_MILLIS_CLAIM, now);
+
+        return Jwts
+                .builder()
+                .setClaims(claims)
+                .setId(tokenId.toString())
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(expiration)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
+                .compact();
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails, long jwtExpiration) {
@@ -38,40 +79,35 @@ public class JWTService {
     }
 
     private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long jwtExpiration) {
+        long now = System.currentTimeMillis();
+
         return Jwts
                 .builder()
                 .setClaims(extraClaims)
+                .claim(VerifiedToken.ISSUED_AT_MILLIS_CLAIM, now)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpiration))
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
+    private Map<String, Object> principalClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
+        if (userDetails instanceof User user) {
+            claims.put(VerifiedToken.USER_ID_CLAIM, user.getUserId());
+            claims.put(VerifiedToken.ROLE_CLAIM, user.getRole().name());
+            claims.put(VerifiedToken.ENABLED_CLAIM, user.getIsEnabled());
+            claims.put(VerifiedToken.LOCKED_CLAIM, user.getIsLocked());
+            claims.put(VerifiedToken.SECURITY_VERSION_CLAIM, user.getSecurityVersion());
+        }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return claims;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return verify(token).isValidFor(userDetails.getUsername());
     }
 }
@@ -9,7 +9,7 @@ import org.moldidev.moldispizza.oauth2.CustomOAuth2User;
 import org.moldidev.moldispizza.repository.BasketRepository;
 import org.moldidev.moldispizza.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
@@ -25,6 +25,8 @@ import java.util.Optional;
 public class OAuth2Service extends DefaultOAuth2UserService {
     private final UserRepository userRepository;
     private final JWTService jwtService;
+    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
     private final BasketRepository basketRepository;
 
     @Value("${frontend.url}")
@@ -38,7 +40,7 @@ public class OAuth2Service extends DefaultOAuth2UserService {
 
         if (foundUserByEmail.isPresent() && foundUserByEmail.get().getProvider().equals(Provider.GOOGLE) && foundUserByEmail.get().getIsEnabled()) {
             String accessToken = jwtService.generateToken(foundUserByEmail.get(), 1000L * 60 * 60); // 60 minutes = one hour
-            String refreshToken = jwtService.generateToken(foundUserByEmail.get(), 1000L * 60 * 60 * 24); // 24 hours = one day
+            String refreshToken = refreshTokenService.issue(foundUserByEmail.get());
             String rememberMeToken = jwtService.generateToken(foundUserByEmail.get(), 1000L * 60 * 60 * 24 * 30); // 30 days = one month
 
             return String.format("%s/pizzas?accessToken=%s&refreshToken=%s&rememberMeToken=%s", frontendUrl, accessToken, refreshToken, rememberMeToken);
@@ -97,14 +99,12 @@ public class OAuth2Service extends DefaultOAuth2UserService {
     private User registerNewUser(Map<String, Object> attributes) {
         User user = new User();
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
         user.setUsername((String) attributes.get("name"));
         user.setFirstName((String) attributes.get("given_name"));
         user.setLastName((String) attributes.get("family_name"));
         user.setEmail((String) attributes.get("email"));
         user.setAddress("!!! TODO !!! UPDATE YOUR ADDRESS !!!");
-        user.setPassword(encoder.encode(securePassword));
+        user.setPassword(passwordEncoder.encode(securePassword));
         user.setIsLocked(false);
         user.setIsEnabled(false);
         user.setProvider(Provider.GOOGLE);
@@ -114,7 +114,7 @@ public class OAuth2Service extends DefaultOAuth2UserService {
 
         Basket basket = new Basket();
         basket.setUser(savedUser);
-        basket.setPizzas(new ArrayList<>());
+        basket.setItems(new ArrayList<>());
         basket.setTotalPrice(0.0);
         basketRepository.save(basket);
 
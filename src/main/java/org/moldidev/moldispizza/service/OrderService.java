@@ -1,7 +1,7 @@
 package org.moldidev.moldispizza.service;
 
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
 import org.moldidev.moldispizza.dto.OrderDTO;
-import org.moldidev.moldispizza.entity.Order;
 import org.moldidev.moldispizza.request.admin.OrderUpdateAdminRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
@@ -18,6 +18,8 @@ public interface OrderService {
 
     Page<OrderDTO> findAll(int page, int size);
     Page<OrderDTO> findAllByUserId(Long userId, int page, int size, Authentication connectedUser);
+    KeysetPageDTO<OrderDTO> findAllAfter(String cursor, int size);
+    KeysetPageDTO<OrderDTO> findAllByUserIdAfter(Long userId, String cursor, int size, Authentication connectedUser);
 
     Boolean hasUserBoughtThePizza(Long userId, Long pizzaId, Authentication connectedUser);
 
@@ -28,5 +30,4 @@ public interface OrderService {
     OrderDTO placeOrderByUserBasket(Long userId, Authentication connectedUser);
 
     void deleteById(UUID orderId);
-    void delete(Order order);
 }
@@ -0,0 +1,45 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.repository.PizzaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// the review transactions keep the aggregates exact, this only repairs drift from writes made outside of them
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PizzaRatingRebuilder {
+
+    private final PizzaRepository pizzaRepository;
+    private final PizzaCatalogCache pizzaCatalogCache;
+
+    // every node runs it, the advisory lock lets one of them do the work while the others skip
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${ratings.rebuild.interval-milliseconds}", fixedDelayString = "${ratings.rebuild.interval-milliseconds}")
+    @Transactional
+    public void rebuild() {
+        if (!pizzaRepository.tryLockRatingRebuild()) {
+            return;
+        }
+
+        int repairedPizzas = 0;
+
+        // once the row lock is held the review transactions on that pizza have committed, so the recount sees their reviews
+        for (Long pizzaId : pizzaRepository.findAllIdsWithRatingDrift()) {
+            if (pizzaRepository.lockRatingsById(pizzaId).isPresent() && pizzaRepository.repairRatingsById(pizzaId) > 0) {
+                pizzaCatalogCache.invalidate(pizzaId);
+                repairedPizzas++;
+            }
+        }
+
+        if (repairedPizzas > 0) {
+            log.warn("Pizza rating rebuild repaired the aggregates of {} pizzas", repairedPizzas);
+        }
+    }
+}
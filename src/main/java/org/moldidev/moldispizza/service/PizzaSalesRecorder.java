@@ -0,0 +1,121 @@
+package org.moldidev.moldispizza.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.dto.PizzaSaleDTO;
+import org.moldidev.moldispizza.enumeration.OrderStatus;
+import org.moldidev.moldispizza.ranking.PizzaSalesRanking;
+import org.moldidev.moldispizza.repository.OrderRepository;
+import org.moldidev.moldispizza.repository.PizzaSalesBucketRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// every order adds its units to the shared buckets in its own transaction, and every instance replaces its in-memory
+// ranking from those buckets on a timer, so the top sellers cover the orders of all instances and lag by one interval at most
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PizzaSalesRecorder {
+
+    private static final Comparator<BucketKey> WRITE_ORDER = Comparator
+            .comparing(BucketKey::pizzaId)
+            .thenComparingInt(BucketKey::minutes)
+            .thenComparingLong(BucketKey::startMinute);
+
+    private final PizzaSalesRanking pizzaSalesRanking;
+    private final PizzaSalesBucketRepository pizzaSalesBucketRepository;
+    private final OrderRepository orderRepository;
+
+    // every sale is one unit, a negative direction takes sales back from the buckets they were counted in
+    @Transactional
+    public void record(Collection<PizzaSaleDTO> sales, int direction) {
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        bucketsOf(sales, direction).forEach((key, units) -> pizzaSalesBucketRepository.addUnits(
+                key.pizzaId(),
+                PizzaSalesRanking.toDateTime(key.startMinute()),
+                key.minutes(),
+                units
+        ));
+
+        // this instance ranks its own sales right away, the others with their next refresh
+        sales
+                .stream()
+                .collect(Collectors.groupingBy(PizzaSaleDTO::placedDate, Collectors.mapping(PizzaSaleDTO::pizzaId, Collectors.toList())))
+                .forEach((placedDate, pizzaIds) -> pizzaSalesRanking.recordAfterCommit(pizzaIds, placedDate, direction));
+    }
+
+    // a deployment that starts with an empty table counts the last week of sold orders once, never per request
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seed() {
+        pizzaSalesBucketRepository.lockSeed();
+
+        LocalDateTime since = LocalDateTime.now().minusHours(PizzaSalesRanking.HOUR_BUCKETS);
+
+        if (!pizzaSalesBucketRepository.existsByBucketStartAfter(since)) {
+            List<OrderStatus> soldStatuses = Arrays
+                    .stream(OrderStatus.values())
+                    .filter(OrderStatus::isSold)
+                    .toList();
+
+            List<PizzaSaleDTO> sales = orderRepository.findAllSalesByStatusInAndCreatedDateAfter(soldStatuses, since);
+
+            bucketsOf(sales, 1).forEach((key, units) -> pizzaSalesBucketRepository.seedUnits(
+                    key.pizzaId(),
+                    PizzaSalesRanking.toDateTime(key.startMinute()),
+                    key.minutes(),
+                    units
+            ));
+
+            log.info("Pizza sales buckets were empty, seeded them from {} sold pizzas", sales.size());
+        }
+
+        refresh();
+    }
+
+    // a sale recorded here after the buckets were read only shows up again with the next refresh
+    @Scheduled(initialDelayString = "${ranking.refresh.interval-milliseconds}", fixedDelayString = "${ranking.refresh.interval-milliseconds}")
+    @Transactional
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (pizzaSalesBucketRepository.tryLockCleanup()) {
+            pizzaSalesBucketRepository.deleteAllExpired(now.minusMinutes(PizzaSalesRanking.MINUTE_BUCKETS), now.minusHours(PizzaSalesRanking.HOUR_BUCKETS));
+        }
+
+        pizzaSalesRanking.replace(pizzaSalesBucketRepository.findAllByBucketStartAfter(now.minusHours(PizzaSalesRanking.HOUR_BUCKETS))
+                .stream()
+                .map(bucket -> new PizzaSalesRanking.Bucket(
+                        bucket.getPizzaId(),
+                        PizzaSalesRanking.epochMinute(bucket.getBucketStart()),
+                        bucket.getBucketMinutes(),
+                        bucket.getUnits()))
+                .toList());
+    }
+
+    // summed per bucket and sorted, so two transactions touching the same buckets always lock them in the same order
+    private Map<BucketKey, Long> bucketsOf(Collection<PizzaSaleDTO> sales, long units) {
+        Map<BucketKey, Long> unitsByBucket = new TreeMap<>(WRITE_ORDER);
+
+        for (PizzaSaleDTO sale : sales) {
+            for (PizzaSalesRanking.Bucket bucket : pizzaSalesRanking.bucketsOf(sale.pizzaId(), sale.placedDate(), units)) {
+                unitsByBucket.merge(new BucketKey(bucket.pizzaId(), bucket.minutes(), bucket.startMinute()), bucket.units(), Long::sum);
+            }
+        }
+
+        return unitsByBucket;
+    }
+
+    private record BucketKey(Long pizzaId, int minutes, long startMinute) {
+    }
+}
@@ -1,22 +1,30 @@
 package org.moldidev.moldispizza.service;
 
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
 import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
+import org.moldidev.moldispizza.dto.TopSellerDTO;
 import org.moldidev.moldispizza.request.admin.PizzaCreateAdminRequest;
 import org.moldidev.moldispizza.request.admin.PizzaUpdateDetailsAdminRequest;
-import org.springframework.data.domain.Page;
+import org.moldidev.moldispizza.response.RenderedResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @Transactional
 public interface PizzaService {
     PizzaDTO save(PizzaCreateAdminRequest request);
 
-    PizzaDTO findById(Long pizzaId);
-    PizzaDTO findByName(String name);
-    Page<PizzaDTO> findAll(int page, int size);
+    RenderedResponse findById(Long pizzaId);
+    RenderedResponse findByName(String name);
+    RenderedResponse findAll(int page, int size);
+    List<PizzaDTO> search(String query, int limit);
+    List<TopSellerDTO> findTopSellers(String window, int limit);
+    ResourceVersionDTO findImagesVersionById(Long pizzaId);
 
     PizzaDTO updateById(Long pizzaId, PizzaUpdateDetailsAdminRequest request);
 
-    void deleteById(Long pizzaId);
+    DeletionJobDTO deleteById(Long pizzaId);
 }
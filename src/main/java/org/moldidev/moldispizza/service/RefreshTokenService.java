@@ -0,0 +1,18 @@
+package org.moldidev.moldispizza.service;
+
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.request.customer.UserRefreshTokenRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+@Service
+@Transactional
+public interface RefreshTokenService {
+    String issue(User user);
+
+    Map<String, String> rotate(UserRefreshTokenRequest request);
+
+    void revokeAllByUserId(Long userId);
+}
@@ -1,7 +1,8 @@
 package org.moldidev.moldispizza.service;
 
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
 import org.moldidev.moldispizza.dto.ReviewDTO;
-import org.moldidev.moldispizza.entity.Review;
 import org.moldidev.moldispizza.request.admin.ReviewUpdateAdminRequest;
 import org.moldidev.moldispizza.request.customer.UserCreateReviewRequest;
 import org.springframework.data.domain.Page;
@@ -16,6 +17,14 @@ public interface ReviewService {
     Page<ReviewDTO> findAll(int page, int size);
     Page<ReviewDTO> findAllByUserId(Long userId, int page, int size);
     Page<ReviewDTO> findAllByPizzaId(Long pizzaId, int page, int size);
+    KeysetPageDTO<ReviewDTO> findAllAfter(String cursor, int size);
+    KeysetPageDTO<ReviewDTO> findAllByUserIdAfter(Long userId, String cursor, int size);
+    KeysetPageDTO<ReviewDTO> findAllByPizzaIdAfter(Long pizzaId, String cursor, int size);
+
+    ResourceVersionDTO findVersionById(Long reviewId);
+    ResourceVersionDTO findVersionOfAll();
+    ResourceVersionDTO findVersionOfAllByUserId(Long userId);
+    ResourceVersionDTO findVersionOfAllByPizzaId(Long pizzaId);
 
     Boolean hasUserReviewedThePizza(Long userId, Long pizzaId, Authentication connectedUser);
 
@@ -24,5 +33,4 @@ public interface ReviewService {
     ReviewDTO updateById(Long reviewId, ReviewUpdateAdminRequest request);
 
     void deleteById(Long reviewId, Authentication connectedUser);
-    void delete(Review review);
 }
@@ -0,0 +1,14 @@
+package org.moldidev.moldispizza.service;
+
+import org.moldidev.moldispizza.request.customer.UserSignOutRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Transactional
+public interface TokenRevocationService {
+    void signOut(String authorizationHeader, UserSignOutRequest request);
+
+    void revokeAllByUserId(Long userId, Authentication connectedUser);
+}
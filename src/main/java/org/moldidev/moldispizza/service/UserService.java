@@ -1,5 +1,8 @@
 package org.moldidev.moldispizza.service;
 
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
 import org.moldidev.moldispizza.dto.UserDTO;
 import org.moldidev.moldispizza.entity.User;
 import org.moldidev.moldispizza.enumeration.Provider;
@@ -27,6 +30,10 @@ public interface UserService {
     UserDTO findByEmail(String email);
     UserDTO findByVerificationToken(String verificationToken);
     Page<UserDTO> findAll(int page, int size);
+    KeysetPageDTO<UserDTO> findAllAfter(String cursor, int size);
+
+    ResourceVersionDTO findVersionById(Long userId);
+    ResourceVersionDTO findVersionByUsername(String username, Authentication connectedUser);
 
     UserDTO verifyByVerificationToken(UserActivateAccountRequest request);
     void resendConfirmationEmail(String email);
@@ -41,7 +48,7 @@ public interface UserService {
     UserDTO updateById(Long userId, UserDetailsUpdateAdminRequest request);
     Map<String, String> completeRegistrationForOAuth2User(Long userId, CompleteRegistrationOAuth2UserRequest request, Authentication connectedUser);
 
-    void deleteById(Long userId);
+    DeletionJobDTO deleteById(Long userId);
 
     Boolean checkIfUserIsAdmin(Long userId);
 
@@ -3,15 +3,17 @@ package org.moldidev.moldispizza.service.implementation;
 import lombok.RequiredArgsConstructor;
 import org.moldidev.moldispizza.dto.BasketDTO;
 import org.moldidev.moldispizza.entity.Basket;
-import org.moldidev.moldispizza.entity.Pizza;
 import org.moldidev.moldispizza.entity.User;
 import org.moldidev.moldispizza.exception.ResourceNotFoundException;
 import org.moldidev.moldispizza.mapper.BasketDTOMapper;
+import org.moldidev.moldispizza.repository.BasketItemRepository;
 import org.moldidev.moldispizza.repository.BasketRepository;
 import org.moldidev.moldispizza.repository.PizzaRepository;
 import org.moldidev.moldispizza.repository.UserRepository;
 import org.moldidev.moldispizza.service.BasketService;
 import org.moldidev.moldispizza.service.SecurityService;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
@@ -24,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class BasketServiceImplementation implements BasketService {
 
     private final BasketRepository basketRepository;
+    private final BasketItemRepository basketItemRepository;
     private final BasketDTOMapper basketDTOMapper;
     private final PizzaRepository pizzaRepository;
     private final SecurityService securityService;
@@ -61,45 +64,65 @@ public class BasketServiceImplementation implements BasketService {
         return baskets.map(basketDTOMapper);
     }
 
+    // a single upsert, the write no longer depends on how many pizzas the basket holds
     @Override
     public BasketDTO addPizzaToUserBasket(Long userId, Long pizzaId, Authentication connectedUser) {
         securityService.validateAuthenticatedUser(connectedUser, userId);
 
-        User foundUser = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("The user by the provided id doesn't exist"));
+        Long basketId = findBasketIdByUserId(userId);
 
-        Basket foundBasket = basketRepository.findByUserUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("The basket by the provided user id doesn't exist"));
-
-        Pizza foundPizza = pizzaRepository.findById(pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("The pizza by the provided id doesn't exist"));
-
-        foundBasket.getPizzas().add(foundPizza);
-        foundBasket.setTotalPrice(foundBasket.getTotalPrice() + foundPizza.getPrice());
+        if (basketItemRepository.addPizza(basketId, pizzaId) == 0) {
+            throw new ResourceNotFoundException("The pizza by the provided id doesn't exist");
+        }
 
-        return basketDTOMapper.apply(basketRepository.save(foundBasket));
+        return findBasketDTOByUserId(userId);
     }
 
     @Override
     public BasketDTO removePizzaFromUserBasket(Long userId, Long pizzaId, Authentication connectedUser) {
         securityService.validateAuthenticatedUser(connectedUser, userId);
 
-        User foundUser = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("The user by the provided id doesn't exist"));
+        Long basketId = findBasketIdByUserId(userId);
 
-        Basket foundBasket = basketRepository.findByUserUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("The basket by the provided user id doesn't exist"));
+        if (!pizzaRepository.existsById(pizzaId)) {
+            throw new ResourceNotFoundException("The pizza by the provided id doesn't exist");
+        }
+
+        if (basketItemRepository.removePizza(basketId, pizzaId) == 0) {
+            throw new ResourceNotFoundException("The provided user doesn't have the pizza to be removed in his basket");
+        }
 
-        Pizza foundPizza = pizzaRepository.findById(pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("The pizza by the provided id doesn't exist"));
+        return findBasketDTOByUserId(userId);
+    }
 
-        if (foundBasket.getPizzas().contains(foundPizza)) {
-            foundBasket.setTotalPrice(foundBasket.getTotalPrice() - foundPizza.getPrice());
-            foundBasket.getPizzas().remove(foundPizza);
+    // baskets used to keep one join row per copy, they are folded into line items once and the old table goes away
+    @EventListener(ApplicationStartedEvent.class)
+    public void migrateLegacyPizzaLinks() {
+        // checked under the lock, a node that waited sees the table the first one dropped as gone
+        basketItemRepository.lockLegacyPizzaLinkMigration();
 
-            return basketDTOMapper.apply(basketRepository.save(foundBasket));
+        if (!basketItemRepository.existsLegacyPizzaLinks()) {
+            return;
         }
 
-        throw new ResourceNotFoundException("The provided user doesn't have the pizza to be removed in his basket");
+        basketItemRepository.migrateLegacyPizzaLinks();
+        basketItemRepository.recalculateTotalPrices();
+        basketItemRepository.dropLegacyPizzaLinks();
+    }
+
+    private Long findBasketIdByUserId(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("The user by the provided id doesn't exist");
+        }
+
+        return basketRepository.findBasketIdByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("The basket by the provided user id doesn't exist"));
+    }
+
+    private BasketDTO findBasketDTOByUserId(Long userId) {
+        Basket foundBasket = basketRepository.findByUserUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("The basket by the provided user id doesn't exist"));
+
+        return basketDTOMapper.apply(foundBasket);
     }
 }
@@ -1,9 +1,17 @@
 package org.moldidev.moldispizza.service.implementation;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.codec.binary.Base64;
+import org.moldidev.moldispizza.cache.ImageContentCache;
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.dto.ImageContentDTO;
 import org.moldidev.moldispizza.dto.ImageDTO;
+import org.moldidev.moldispizza.dto.KeysetCursorDTO;
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
 import org.moldidev.moldispizza.entity.Image;
+import org.moldidev.moldispizza.entity.ImageVariant;
 import org.moldidev.moldispizza.entity.Pizza;
 import org.moldidev.moldispizza.entity.User;
 import org.moldidev.moldispizza.exception.ObjectNotValidException;
@@ -12,63 +20,95 @@ import org.moldidev.moldispizza.mapper.ImageDTOMapper;
 import org.moldidev.moldispizza.repository.ImageRepository;
 import org.moldidev.moldispizza.repository.PizzaRepository;
 import org.moldidev.moldispizza.repository.UserRepository;
+import org.moldidev.moldispizza.service.ImageFileDeleter;
 import org.moldidev.moldispizza.service.ImageService;
+import org.moldidev.moldispizza.service.ImageVariantGenerator;
+import org.moldidev.moldispizza.storage.ImageStorage;
+import org.moldidev.moldispizza.storage.ImageTypes;
+import org.moldidev.moldispizza.storage.StoredImage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class ImageServiceImplementation implements ImageService {
 
+    private static final int MAXIMUM_BATCH_SIZE = 50;
+    private static final int MAXIMUM_VARIANT_SWEEP_SIZE = 200;
+
     private final ImageRepository imageRepository;
     private final UserRepository userRepository;
     private final PizzaRepository pizzaRepository;
     private final ImageDTOMapper imageDTOMapper;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final ImageFileDeleter imageFileDeleter;
+    private final ImageStorage imageStorage;
+    private final ImageContentCache imageContentCache;
+    private final PizzaCatalogCache pizzaCatalogCache;
+    private final TaskExecutor imageProcessingExecutor;
+    private final TaskExecutor imageStorageExecutor;
+
+    @Value("${storage.variant-sweep.interval-milliseconds}")
+    private long variantSweepIntervalMilliseconds;
 
     @Override
     public ImageDTO save(MultipartFile image) {
-        HashSet<String> violations = new HashSet<>();
-
-        if (image.getSize() > 1024 * 1024 * 5) {
-            violations.add("The image size must not exceed 5MB");
-            throw new ObjectNotValidException(violations);
-        }
-
-        try {
-            Image newImage = new Image();
-
-            String filename = LocalDateTime.now() + " " + image.getOriginalFilename();
-            String saveDirectory = "src/main/resources/images/";
-            Path savePath = Paths.get(saveDirectory + filename);
-
-            Files.createDirectories(savePath.getParent());
-
-            Files.copy(image.getInputStream(), savePath, StandardCopyOption.REPLACE_EXISTING);
+        return saveAll(List.of(image)).get(0);
+    }
 
-            newImage.setUrl(savePath.toString());
-            newImage.setType(image.getContentType());
+    @Override
+    public List<ImageDTO> saveAll(List<MultipartFile> images) {
+        HashSet<String> violations = new HashSet<>();
 
-            return imageDTOMapper.apply(imageRepository.save(newImage));
+        for (MultipartFile image : images) {
+            if (image.getSize() > 1024 * 1024 * 5) {
+                violations.add("The image size must not exceed 5MB");
+                throw new ObjectNotValidException(violations);
+            }
         }
 
-        catch (IOException e) {
-            throw new RuntimeException("Image could not be saved: " + e.getMessage());
-        }
+        return storeAll(images)
+                .stream()
+                .map(imageDTOMapper)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -76,10 +116,8 @@ public class ImageServiceImplementation implements ImageService {
         Image foundImage = imageRepository.findById(imageId)
                 .orElseThrow(() -> new ResourceNotFoundException("The image by the provided id doesn't exist"));
 
-        Path path = Paths.get(foundImage.getUrl());
-
-        try {
-            byte[] imageBytes = Files.readAllBytes(path);
+        try (InputStream inputStream = imageContentCache.get(foundImage.getImageId(), foundImage.getUrl()).resource().getInputStream()) {
+            byte[] imageBytes = inputStream.readAllBytes();
             return Base64.encodeBase64String(imageBytes);
         }
 
@@ -93,10 +131,8 @@ public class ImageServiceImplementation implements ImageService {
         Image foundImage = imageRepository.findByUrl(url)
                 .orElseThrow(() -> new ResourceNotFoundException("The image by the provided url doesn't exist"));
 
-        Path path = Paths.get(foundImage.getUrl());
-
-        try {
-            byte[] imageBytes = Files.readAllBytes(path);
+        try (InputStream inputStream = imageContentCache.get(foundImage.getImageId(), foundImage.getUrl()).resource().getInputStream()) {
+            byte[] imageBytes = inputStream.readAllBytes();
             return Base64.encodeBase64String(imageBytes);
         }
 
@@ -110,10 +146,8 @@ public class ImageServiceImplementation implements ImageService {
         Image foundImage = imageRepository.findByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("The image by the provided user id doesn't exist"));
 
-        Path path = Paths.get(foundImage.getUrl());
-
-        try {
-            byte[] imageBytes = Files.readAllBytes(path);
+        try (InputStream inputStream = imageContentCache.get(foundImage.getImageId(), foundImage.getUrl()).resource().getInputStream()) {
+            byte[] imageBytes = inputStream.readAllBytes();
             return Base64.encodeBase64String(imageBytes);
         }
 
@@ -122,6 +156,118 @@ public class ImageServiceImplementation implements ImageService {
         }
     }
 
+    @Override
+    public ImageContentDTO findContentById(Long imageId, String variant) {
+        validateVariant(variant);
+
+        Image foundImage = imageRepository.findById(imageId)
+                .orElseThrow(() -> new ResourceNotFoundException("The image by the provided id doesn't exist"));
+
+        return readContent(foundImage, variant, true);
+    }
+
+    @Override
+    public List<ImageContentDTO> findAllContentByPizzaId(Long pizzaId, String variant) {
+        validateVariant(variant);
+
+        List<Image> images = imageRepository.findAllWithVariantsByPizzaId(pizzaId);
+
+        if (images.isEmpty()) {
+            throw new ResourceNotFoundException("No images exist by the provided pizza id");
+        }
+
+        return readAllContent(images, variant);
+    }
+
+    @Override
+    public List<ImageContentDTO> findAllContentByIds(List<Long> imageIds, String variant) {
+        validateVariant(variant);
+
+        HashSet<String> violations = new HashSet<>();
+
+        if (imageIds.isEmpty() || imageIds.size() > MAXIMUM_BATCH_SIZE) {
+            violations.add("Between 1 and " + MAXIMUM_BATCH_SIZE + " images can be requested at once");
+            throw new ObjectNotValidException(violations);
+        }
+
+        Map<Long, Image> imagesById = imageRepository.findAllWithVariantsByImageIdIn(imageIds)
+                .stream()
+                .collect(Collectors.toMap(Image::getImageId, image -> image));
+
+        if (!imagesById.keySet().containsAll(imageIds)) {
+            throw new ResourceNotFoundException("One or more images by the provided ids don't exist");
+        }
+
+        return readAllContent(imageIds.stream().map(imagesById::get).toList(), variant);
+    }
+
+    // the rows come from one query, only the content reads fan out to the storage executor
+    private List<ImageContentDTO> readAllContent(List<Image> images, String variant) {
+        List<CompletableFuture<ImageContentDTO>> reads = images
+                .stream()
+                .map(image -> CompletableFuture.supplyAsync(() -> readContent(image, variant, false), imageStorageExecutor))
+                .toList();
+
+        return reads
+                .stream()
+                .map(this::join)
+                .toList();
+    }
+
+    // no variant means the original, anything else has to name one the generator produces
+    private void validateVariant(String variant) {
+        if (variant != null && !ImageVariantGenerator.variantNames().contains(variant)) {
+            HashSet<String> violations = new HashSet<>();
+            violations.add("The variant must be one of " + String.join(", ", ImageVariantGenerator.variantNames()));
+            throw new ObjectNotValidException(violations);
+        }
+    }
+
+    private ImageContentDTO readContent(Image foundImage, String variant, boolean redirectAllowed) {
+        // until the variant has been generated the original is served, clients still get a usable image
+        Optional<ImageVariant> foundVariant = foundImage.getVariants()
+                .stream()
+                .filter(imageVariant -> imageVariant.getName().equals(variant))
+                .findFirst();
+
+        String key = foundVariant.map(ImageVariant::getUrl).orElse(foundImage.getUrl());
+        String type = foundVariant.map(ImageVariant::getType).orElse(foundImage.getType());
+        String contentHash = foundVariant.isPresent() ? foundImage.getContentHash() + "-" + variant : foundImage.getContentHash();
+
+        // the original standing in for a missing variant must not be cached under the variant's url
+        boolean immutable = variant == null || foundVariant.isPresent();
+
+        Optional<URI> presignedUrl = redirectAllowed ? imageStorage.findPresignedUrl(key) : Optional.empty();
+
+        if (presignedUrl.isPresent()) {
+            return new ImageContentDTO(foundImage.getImageId(), null, type, null, null, null, presignedUrl.get(), immutable);
+        }
+
+        try {
+            StoredImage storedImage = imageContentCache.get(foundImage.getImageId(), key);
+
+            // an image is never rewritten in place, so its hash (or id, size and modification time for older rows) identifies the content
+            String eTag = foundImage.getContentHash() != null
+                    ? "\"" + contentHash + "\""
+                    : "\"" + foundImage.getImageId() + "-" + Long.toHexString(storedImage.size()) + "-" + Long.toHexString(storedImage.lastModified().toEpochMilli()) + "\"";
+
+            return new ImageContentDTO(
+                    foundImage.getImageId(),
+                    storedImage.resource(),
+                    type,
+                    storedImage.size(),
+                    eTag,
+                    storedImage.lastModified(),
+                    null,
+                    immutable
+            );
+        }
+
+        catch (IOException e) {
+            throw new ResourceNotFoundException("The image file by the provided id doesn't exist");
+        }
+    }
+
     @Override
     public Page<ImageDTO> findAll(int page, int size) {
         Page<Image> images = imageRepository.findAll(PageRequest.of(page, size));
@@ -133,6 +279,18 @@ public class ImageServiceImplementation implements ImageService {
         return images.map(imageDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<ImageDTO> findAllAfter(String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Image> images = imageRepository.findAllAfter(position.createdDate(), position.longId(), KeysetCursorDTO.limit(size));
+
+        if (images.isEmpty()) {
+            throw new ResourceNotFoundException("No images exist");
+        }
+
+        return KeysetPageDTO.of(images, size, Image::getImageId, imageDTOMapper);
+    }
+
     @Override
     public Page<ImageDTO> findAllByType(String type, int page, int size) {
         Page<Image> images = imageRepository.findAllByType(type, PageRequest.of(page, size));
@@ -144,6 +302,18 @@ public class ImageServiceImplementation implements ImageService {
         return images.map(imageDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<ImageDTO> findAllByTypeAfter(String type, String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Image> images = imageRepository.findAllByTypeAfter(type, position.createdDate(), position.longId(), KeysetCursorDTO.limit(size));
+
+        if (images.isEmpty()) {
+            throw new ResourceNotFoundException("No images exist by the provided type");
+        }
+
+        return KeysetPageDTO.of(images, size, Image::getImageId, imageDTOMapper);
+    }
+
     @Override
     public List<ImageDTO> findAllByPizzaId(Long pizzaId) {
         List<Image> images = imageRepository.findAllByPizzaId(pizzaId);
@@ -159,18 +329,32 @@ public class ImageServiceImplementation implements ImageService {
     }
 
     @Override
-    public void delete(Image image) {
-        Path path = Paths.get(image.getUrl());
+    public ResourceVersionDTO findVersionById(Long imageId) {
+        return ResourceVersionDTO.from("image", imageRepository.findModificationSummaryById(imageId));
+    }
 
-        try {
-            Files.deleteIfExists(path);
-        }
+    @Override
+    public ResourceVersionDTO findVersionByUserId(Long userId) {
+        return ResourceVersionDTO.from("image", imageRepository.findModificationSummaryByUserId(userId));
+    }
 
-        catch (IOException e) {
-            throw new RuntimeException("Failed to delete the image: " + e.getMessage());
+    @Override
+    public void release(Image image) {
+        // an upload of the same content waits until this transaction ends instead of reusing the row being deleted
+        imageRepository.lockKey(image.getUrl());
+
+        // the caller has already unlinked the image, flush so the reference count sees it
+        imageRepository.flush();
+
+        if (imageRepository.countReferencesByImageId(image.getImageId()) > 0) {
+            return;
         }
 
+        List<String> urls = imageUrls(image);
+
+        imageContentCache.invalidate(image.getImageId());
         imageRepository.delete(image);
+        deleteFilesAfterCommit(image.getUrl(), urls);
     }
 
     @Override
@@ -178,29 +362,354 @@ public class ImageServiceImplementation implements ImageService {
         Image foundImage = imageRepository.findById(imageId)
                 .orElseThrow(() -> new ResourceNotFoundException("The image by the provided id doesn't exist"));
 
-        Optional<User> userWithImage = userRepository.findByImageId(imageId);
-        Optional<Pizza> pizzaWithImage = pizzaRepository.findByImageId(imageId);
+        imageRepository.lockKey(foundImage.getUrl());
+
+        List<User> usersWithImage = userRepository.findAllByImageId(imageId);
+        List<Pizza> pizzasWithImage = pizzaRepository.findAllByImageId(imageId);
 
-        if (userWithImage.isPresent()) {
-            userWithImage.get().setImage(null);
-            userRepository.save(userWithImage.get());
+        for (User user : usersWithImage) {
+            user.setImage(null);
+            userRepository.save(user);
         }
 
-        if (pizzaWithImage.isPresent()) {
-            pizzaWithImage.get().getImages().remove(foundImage);
-            pizzaRepository.save(pizzaWithImage.get());
+        for (Pizza pizza : pizzasWithImage) {
+            pizza.getImages().removeIf(image -> image.getImageId().equals(imageId));
+            pizza.setLastModifiedDate(LocalDateTime.now());
+            pizzaRepository.save(pizza);
+            pizzaCatalogCache.invalidate(pizza.getPizzaId());
         }
 
-        Path path = Paths.get(foundImage.getUrl());
+        List<String> urls = imageUrls(foundImage);
+
+        imageContentCache.invalidate(imageId);
+        imageRepository.delete(foundImage);
+        deleteFilesAfterCommit(foundImage.getUrl(), urls);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void alignIdSequence() {
+        imageRepository.alignIdSequence();
+    }
+
+    // images uploaded before content addressing get their hash here, duplicates are merged into the first copy
+    // every node calls it on start, the advisory lock lets only the first one walk the images
+    @Override
+    public void backfillContentHashes() {
+        if (!imageRepository.tryLockContentHashBackfill()) {
+            return;
+        }
+
+        for (Image image : imageRepository.findAllByContentHashIsNull()) {
+            String contentHash;
+
+            try (InputStream inputStream = imageStorage.get(image.getUrl()).resource().getInputStream()) {
+                contentHash = hashWhileCopying(inputStream, OutputStream.nullOutputStream());
+            }
+
+            catch (NoSuchFileException e) {
+                // the file is not reachable from this node yet, it is hashed once it has been migrated
+                continue;
+            }
+
+            catch (IOException | RuntimeException e) {
+                log.warn("Could not hash the content of image {}: {}", image.getImageId(), e.getMessage());
+                continue;
+            }
+
+            Optional<Image> canonicalImage = imageRepository.findByContentHash(contentHash);
+
+            if (canonicalImage.isPresent()) {
+                imageRepository.moveUserReferences(image.getImageId(), canonicalImage.get().getImageId());
+                imageRepository.movePizzaReferences(image.getImageId(), canonicalImage.get().getImageId());
+                pizzaCatalogCache.invalidate();
+                List<String> urls = imageUrls(image);
+
+                imageContentCache.invalidate(image.getImageId());
+                imageRepository.delete(image);
+                deleteFilesAfterCommit(image.getUrl(), urls);
+            }
+
+            else {
+                image.setContentHash(contentHash);
+                imageRepository.saveAndFlush(image);
+            }
+        }
+    }
+
+    // variants dropped by a full processing queue or a crash are queued again, by one node at a time
+    // images younger than one interval are skipped, their first generation is most likely still in a queue
+    @Scheduled(initialDelayString = "${storage.variant-sweep.interval-milliseconds}", fixedDelayString = "${storage.variant-sweep.interval-milliseconds}")
+    public void generateMissingVariants() {
+        if (!imageRepository.tryLockVariantSweep()) {
+            return;
+        }
+
+        LocalDateTime createdBefore = LocalDateTime.now().minus(Duration.ofMillis(variantSweepIntervalMilliseconds));
+
+        imageRepository.findAllWithoutVariantsCreatedBefore(createdBefore, MAXIMUM_VARIANT_SWEEP_SIZE).forEach(imageVariantGenerator::generateAfterCommit);
+    }
+
+    // the menu shows the pizza images first, the small variants go in before the originals while the budget lasts
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmContentCache() {
+        List<Image> pizzaImages = imageRepository.findAllReferencedByPizzas();
+        List<Map.Entry<Long, String>> keys = new ArrayList<>();
+
+        for (Image image : pizzaImages) {
+            image.getVariants().forEach(variant -> keys.add(Map.entry(image.getImageId(), variant.getUrl())));
+        }
+
+        pizzaImages.forEach(image -> keys.add(Map.entry(image.getImageId(), image.getUrl())));
 
         try {
-            Files.deleteIfExists(path);
+            imageProcessingExecutor.execute(() -> {
+                for (Map.Entry<Long, String> key : keys) {
+                    if (imageContentCache.isFull()) {
+                        return;
+                    }
+
+                    try {
+                        imageContentCache.get(key.getKey(), key.getValue());
+                    }
+
+                    catch (IOException ignored) {
+                        // a missing file is reported when it is actually requested
+                    }
+                }
+            });
+        }
+
+        catch (TaskRejectedException e) {
+            log.warn("The image content cache could not be warmed: {}", e.getMessage());
+        }
+    }
+
+    // hashing and uploading run on the storage executor, the rows are inserted together in one jdbc batch
+    private List<Image> storeAll(List<MultipartFile> images) {
+        List<StagedImage> stagedImages = new ArrayList<>();
+
+        try {
+            List<CompletableFuture<StagedImage>> stagings = images
+                    .stream()
+                    .map(image -> CompletableFuture.supplyAsync(() -> stage(image), imageStorageExecutor))
+                    .toList();
+
+            for (CompletableFuture<StagedImage> staging : stagings) {
+                stagedImages.add(join(staging));
+            }
+
+            // sorted, so two batches sharing photos lock them in the same order
+            stagedImages
+                    .stream()
+                    .map(StagedImage::key)
+                    .distinct()
+                    .sorted()
+                    .forEach(imageRepository::lockKey);
+
+            Map<String, Image> imagesByContentHash = new HashMap<>();
+
+            imageRepository.findAllByContentHashIn(stagedImages.stream().map(StagedImage::contentHash).collect(Collectors.toSet()))
+                    .forEach(image -> imagesByContentHash.put(image.getContentHash(), image));
+
+            // the same photo twice in one request is uploaded and inserted once
+            Map<String, StagedImage> newImages = new LinkedHashMap<>();
+
+            for (StagedImage stagedImage : stagedImages) {
+                if (!imagesByContentHash.containsKey(stagedImage.contentHash())) {
+                    newImages.putIfAbsent(stagedImage.contentHash(), stagedImage);
+                }
+            }
+
+            deleteUploadsAfterRollback(newImages.values().stream().map(StagedImage::key).toList());
+
+            List<CompletableFuture<Void>> uploads = newImages.values()
+                    .stream()
+                    .map(stagedImage -> CompletableFuture.runAsync(() -> upload(stagedImage), imageStorageExecutor))
+                    .toList();
+
+            uploads.forEach(this::join);
+
+            List<Image> savedImages = imageRepository.saveAll(newImages.values().stream().map(StagedImage::toImage).toList());
+
+            for (Image savedImage : savedImages) {
+                imagesByContentHash.put(savedImage.getContentHash(), savedImage);
+                imageVariantGenerator.generateAfterCommit(savedImage);
+            }
+
+            return stagedImages
+                    .stream()
+                    .map(stagedImage -> imagesByContentHash.get(stagedImage.contentHash()))
+                    .toList();
+        }
+
+        finally {
+            for (StagedImage stagedImage : stagedImages) {
+                try {
+                    Files.deleteIfExists(stagedImage.temporaryFile());
+                }
+
+                catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private StagedImage stage(MultipartFile image) {
+        Path temporaryFile = null;
+
+        try {
+            temporaryFile = Files.createTempFile("upload-", ".tmp");
+
+            String contentHash;
+
+            try (InputStream inputStream = image.getInputStream(); OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                contentHash = hashWhileCopying(inputStream, outputStream);
+            }
+
+            // the type is taken from the bytes, a declared text/html or image/svg+xml would be served as script from our origin
+            Optional<String> type = ImageTypes.detect(temporaryFile);
+
+            if (type.isEmpty()) {
+                Files.deleteIfExists(temporaryFile);
+
+                HashSet<String> violations = new HashSet<>();
+                violations.add("The image must be a JPEG, PNG, GIF or WebP file");
+                throw new ObjectNotValidException(violations);
+            }
+
+            return new StagedImage(temporaryFile, contentHash, type.get());
         }
 
         catch (IOException e) {
-            throw new RuntimeException("Failed to delete the image: " + e.getMessage());
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                }
+
+                catch (IOException ignored) {
+                }
+            }
+
+            throw new RuntimeException("Image could not be saved: " + e.getMessage());
         }
+    }
 
-        imageRepository.delete(foundImage);
+    private void upload(StagedImage stagedImage) {
+        try (InputStream inputStream = Files.newInputStream(stagedImage.temporaryFile())) {
+            imageStorage.put(stagedImage.key(), inputStream, Files.size(stagedImage.temporaryFile()), stagedImage.type());
+        }
+
+        catch (IOException e) {
+            throw new RuntimeException("Image could not be saved: " + e.getMessage());
+        }
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        }
+
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    // uploads of a rolled back batch have no row, unless a concurrent upload of the same photo committed one meanwhile
+    private void deleteUploadsAfterRollback(List<String> keys) {
+        if (keys.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+
+                for (String key : keys) {
+                    try {
+                        imageFileDeleter.deleteUnreferenced(key, List.of(key));
+                    }
+
+                    catch (Exception e) {
+                        log.warn("Could not delete the image {} after a rollback: {}", key, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private String hashWhileCopying(InputStream inputStream, OutputStream outputStream) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            try (DigestInputStream digestInputStream = new DigestInputStream(inputStream, digest)) {
+                digestInputStream.transferTo(outputStream);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private List<String> imageUrls(Image image) {
+        List<String> urls = new ArrayList<>();
+
+        urls.add(image.getUrl());
+        urls.addAll(ImageVariantGenerator.variantUrls(image));
+
+        return urls;
+    }
+
+    // other rows may still point at the files until the transaction commits, so they are only removed afterwards
+    private void deleteFilesAfterCommit(String key, List<String> urls) {
+        // the caller's change is already committed, so a failure here is only logged and never turned into an error response
+        Runnable deletion = () -> {
+            try {
+                imageFileDeleter.deleteUnreferenced(key, urls);
+            }
+
+            catch (RuntimeException e) {
+                log.warn("Could not delete the files of image {}: {}", key, e.getMessage());
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deletion.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deletion.run();
+            }
+        });
+    }
+
+    private record StagedImage(Path temporaryFile, String contentHash, String type) {
+
+        // sharded by the first two hex digits so no single directory or key prefix grows too large
+        private String key() {
+            return contentHash.substring(0, 2) + "/" + contentHash;
+        }
+
+        private Image toImage() {
+            Image image = new Image();
+
+            image.setUrl(key());
+            image.setType(type);
+            image.setContentHash(contentHash);
+
+            return image;
+        }
     }
 }
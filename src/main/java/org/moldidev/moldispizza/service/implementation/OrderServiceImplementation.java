@@ -1,20 +1,26 @@
 package org.moldidev.moldispizza.service.implementation;
 
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.dto.KeysetCursorDTO;
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
 import org.moldidev.moldispizza.dto.OrderDTO;
-import org.moldidev.moldispizza.entity.Basket;
+import org.moldidev.moldispizza.dto.PizzaSaleDTO;
+import org.moldidev.moldispizza.entity.BasketItem;
 import org.moldidev.moldispizza.entity.Order;
+import org.moldidev.moldispizza.entity.Pizza;
 import org.moldidev.moldispizza.entity.User;
 import org.moldidev.moldispizza.enumeration.OrderStatus;
 import org.moldidev.moldispizza.exception.ObjectNotValidException;
 import org.moldidev.moldispizza.exception.ResourceNotFoundException;
 import org.moldidev.moldispizza.mapper.OrderDTOMapper;
+import org.moldidev.moldispizza.repository.BasketItemRepository;
 import org.moldidev.moldispizza.repository.BasketRepository;
 import org.moldidev.moldispizza.repository.OrderRepository;
 import org.moldidev.moldispizza.repository.UserRepository;
 import org.moldidev.moldispizza.request.admin.OrderUpdateAdminRequest;
 import org.moldidev.moldispizza.service.EmailService;
 import org.moldidev.moldispizza.service.OrderService;
+import org.moldidev.moldispizza.service.PizzaSalesRecorder;
 import org.moldidev.moldispizza.service.SecurityService;
 import org.moldidev.moldispizza.validation.ObjectValidator;
 import org.springframework.data.domain.Page;
@@ -24,7 +30,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -35,9 +43,11 @@ public class OrderServiceImplementation implements OrderService {
     private final OrderRepository orderRepository;
     private final OrderDTOMapper orderDTOMapper;
     private final BasketRepository basketRepository;
+    private final BasketItemRepository basketItemRepository;
     private final SecurityService securityService;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final PizzaSalesRecorder pizzaSalesRecorder;
 
     private final ObjectValidator<OrderUpdateAdminRequest> orderUpdateAdminRequestValidator;
 
@@ -74,6 +84,18 @@ public class OrderServiceImplementation implements OrderService {
         return orders.map(orderDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<OrderDTO> findAllAfter(String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Order> orders = orderRepository.findAllAfter(position.createdDate(), position.uuidId(), KeysetCursorDTO.limit(size));
+
+        if (orders.isEmpty()) {
+            throw new ResourceNotFoundException("No orders exist");
+        }
+
+        return KeysetPageDTO.of(orders, size, Order::getOrderId, orderDTOMapper);
+    }
+
     @Override
     public Page<OrderDTO> findAllByUserId(Long userId, int page, int size, Authentication connectedUser) {
         securityService.validateAuthenticatedUser(connectedUser, userId);
@@ -90,6 +112,20 @@ public class OrderServiceImplementation implements OrderService {
         return orders.map(orderDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<OrderDTO> findAllByUserIdAfter(Long userId, String cursor, int size, Authentication connectedUser) {
+        securityService.validateAuthenticatedUser(connectedUser, userId);
+
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Order> orders = orderRepository.findAllByUserIdAfter(userId, position.createdDate(), position.uuidId(), KeysetCursorDTO.limit(size));
+
+        if (orders.isEmpty()) {
+            throw new ResourceNotFoundException("This user has no orders");
+        }
+
+        return KeysetPageDTO.of(orders, size, Order::getOrderId, orderDTOMapper);
+    }
+
     @Override
     public Boolean hasUserBoughtThePizza(Long userId, Long pizzaId, Authentication connectedUser) {
         securityService.validateAuthenticatedUser(connectedUser, userId);
@@ -104,9 +140,15 @@ public class OrderServiceImplementation implements OrderService {
 
         orderUpdateAdminRequestValidator.validate(request);
 
+        boolean wasSold = isSold(foundOrder);
+
         foundOrder.setStatus(request.status());
         foundOrder.setTotalPrice(request.totalPrice());
 
+        if (wasSold != isSold(foundOrder)) {
+            recordSale(foundOrder, wasSold ? -1 : 1);
+        }
+
         return orderDTOMapper.apply(orderRepository.save(foundOrder));
     }
 
@@ -122,6 +164,7 @@ public class OrderServiceImplementation implements OrderService {
         }
 
         foundOrder.setStatus(OrderStatus.PAID);
+        recordSale(foundOrder, 1);
 
         OrderDTO paidOrder = orderDTOMapper.apply(orderRepository.save(foundOrder));
 
@@ -134,26 +177,34 @@ public class OrderServiceImplementation implements OrderService {
     public OrderDTO placeOrderByUserBasket(Long userId, Authentication connectedUser) {
         securityService.validateAuthenticatedUser(connectedUser, userId);
 
-        Basket foundBasket = basketRepository.findByUserUserId(userId)
+        Long basketId = basketRepository.findBasketIdByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("The basket by the provided user id doesn't exist"));
 
-        if (foundBasket.getPizzas().isEmpty()) {
+        List<BasketItem> items = basketItemRepository.findAllByBasketIdForUpdate(basketId);
+
+        if (items.isEmpty()) {
             HashSet<String> violations = new HashSet<>();
             violations.add("The pizza list is required");
             throw new ObjectNotValidException(violations);
         }
 
+        // the order still lists one pizza per copy
+        List<Pizza> pizzas = new ArrayList<>();
+        double totalPrice = 0.0;
+
+        for (BasketItem item : items) {
+            pizzas.addAll(Collections.nCopies(item.getQuantity(), item.getPizza()));
+            totalPrice += item.getQuantity() * item.getUnitPrice();
+        }
+
         Order placedOrder = new Order();
 
-        placedOrder.setPizzas(foundBasket.getPizzas());
-        placedOrder.setUser(foundBasket.getUser());
+        placedOrder.setPizzas(pizzas);
+        placedOrder.setUser(userRepository.getReferenceById(userId));
         placedOrder.setStatus(OrderStatus.PENDING);
-        placedOrder.setTotalPrice(foundBasket.getTotalPrice());
-
-        foundBasket.setTotalPrice(0.0);
-        foundBasket.setPizzas(new ArrayList<>());
+        placedOrder.setTotalPrice(totalPrice);
 
-        basketRepository.save(foundBasket);
+        basketItemRepository.removeAllByBasketItemIdIn(basketId, items.stream().map(BasketItem::getBasketItemId).toList());
 
         return orderDTOMapper.apply(orderRepository.save(placedOrder));
     }
@@ -164,10 +215,24 @@ public class OrderServiceImplementation implements OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("The order by the provided id doesn't exist"));
 
         orderRepository.delete(foundOrder);
+
+        if (isSold(foundOrder)) {
+            recordSale(foundOrder, -1);
+        }
     }
 
-    @Override
-    public void delete(Order order) {
-        orderRepository.delete(order);
+    private boolean isSold(Order order) {
+        return order.getStatus() != null && order.getStatus().isSold();
+    }
+
+    // a sale is counted at the time the order was placed, so taking it back hits the same bucket
+    private void recordSale(Order order, int direction) {
+        pizzaSalesRecorder.record(
+                order.getPizzas()
+                        .stream()
+                        .map(pizza -> new PizzaSaleDTO(pizza.getPizzaId(), order.getCreatedDate()))
+                        .toList(),
+                direction
+        );
     }
 }
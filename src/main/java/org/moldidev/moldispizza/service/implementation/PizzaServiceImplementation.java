@@ -1,52 +1,69 @@
 package org.moldidev.moldispizza.service.implementation;
 
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.cache.PizzaCatalogSnapshot;
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
 import org.moldidev.moldispizza.dto.ImageDTO;
 import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
+import org.moldidev.moldispizza.dto.TopSellerDTO;
 import org.moldidev.moldispizza.entity.Image;
-import org.moldidev.moldispizza.entity.Order;
 import org.moldidev.moldispizza.entity.Pizza;
-import org.moldidev.moldispizza.entity.Review;
+import org.moldidev.moldispizza.enumeration.DeletionJobStatus;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
+import org.moldidev.moldispizza.enumeration.SalesWindow;
+import org.moldidev.moldispizza.exception.ObjectNotValidException;
 import org.moldidev.moldispizza.exception.ResourceAlreadyExistsException;
 import org.moldidev.moldispizza.exception.ResourceNotFoundException;
 import org.moldidev.moldispizza.mapper.PizzaDTOMapper;
+import org.moldidev.moldispizza.ranking.PizzaSalesRanking;
+import org.moldidev.moldispizza.repository.DeletionJobRepository;
 import org.moldidev.moldispizza.repository.ImageRepository;
-import org.moldidev.moldispizza.repository.OrderRepository;
 import org.moldidev.moldispizza.repository.PizzaRepository;
-import org.moldidev.moldispizza.repository.ReviewRepository;
 import org.moldidev.moldispizza.request.admin.PizzaCreateAdminRequest;
 import org.moldidev.moldispizza.request.admin.PizzaUpdateDetailsAdminRequest;
+import org.moldidev.moldispizza.response.RenderedResponse;
+import org.moldidev.moldispizza.search.PizzaSearchIndex;
+import org.moldidev.moldispizza.service.DeletionJobRunner;
 import org.moldidev.moldispizza.service.ImageService;
-import org.moldidev.moldispizza.service.OrderService;
 import org.moldidev.moldispizza.service.PizzaService;
-import org.moldidev.moldispizza.service.ReviewService;
 import org.moldidev.moldispizza.validation.ObjectValidator;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class PizzaServiceImplementation implements PizzaService {
 
+    private static final int MAXIMUM_SEARCH_LIMIT = 50;
+    private static final int MAXIMUM_TOP_SELLERS_LIMIT = 50;
+
     private final PizzaRepository pizzaRepository;
+    private final DeletionJobRepository deletionJobRepository;
+    private final DeletionJobRunner deletionJobRunner;
+    private final PizzaCatalogCache pizzaCatalogCache;
+    private final PizzaSearchIndex pizzaSearchIndex;
+    private final PizzaSalesRanking pizzaSalesRanking;
     private final PizzaDTOMapper pizzaDTOMapper;
     private final ImageRepository imageRepository;
     private final ImageService imageService;
-    private final OrderRepository orderRepository;
-    private final OrderService orderService;
 
     private final ObjectValidator<PizzaCreateAdminRequest> pizzaCreateAdminRequestValidator;
     private final ObjectValidator<PizzaUpdateDetailsAdminRequest> pizzaUpdateDetailsAdminRequestValidator;
-    private final ReviewRepository reviewRepository;
-    private final ReviewService reviewService;
 
     @Override
     public PizzaDTO save(PizzaCreateAdminRequest request) {
@@ -65,52 +82,120 @@ public class PizzaServiceImplementation implements PizzaService {
         pizza.setIngredients(request.ingredients());
         pizza.setPrice(request.price());
 
-        pizzaRepository.save(pizza);
+        // the images are already managed after the batch save, so the references cost no extra queries
+        for (ImageDTO imageDTO : imageService.saveAll(request.images())) {
+            pizza.getImages().add(imageRepository.getReferenceById(imageDTO.imageId()));
+        }
+
+        Pizza savedPizza = pizzaRepository.save(pizza);
+        pizzaCatalogCache.invalidate(savedPizza.getPizzaId());
+        pizzaSearchIndex.indexAfterCommit(savedPizza.getPizzaId(), savedPizza.getName(), savedPizza.getIngredients());
+
+        return pizzaDTOMapper.apply(savedPizza);
+    }
 
-        List<ImageDTO> imagesDTOs = new ArrayList<>();
+    @Override
+    public RenderedResponse findById(Long pizzaId) {
+        RenderedResponse result = catalogSnapshot().findById(pizzaId);
 
-        for (MultipartFile image : request.images()) {
-            imagesDTOs.add(imageService.save(image));
+        if (result == null) {
+            throw new ResourceNotFoundException("The pizza by the provided id doesn't exist");
         }
 
-        for (ImageDTO imageDTO : imagesDTOs) {
-            Image image = new Image();
+        return result;
+    }
 
-            image.setImageId(imageDTO.imageId());
-            image.setUrl(imageDTO.url());
-            image.setType(imageDTO.type());
+    @Override
+    public RenderedResponse findByName(String name) {
+        RenderedResponse result = catalogSnapshot().findByName(name);
 
-            pizza.getImages().add(image);
+        if (result == null) {
+            throw new ResourceNotFoundException("The pizza by the provided name doesn't exist");
         }
 
-        return pizzaDTOMapper.apply(pizzaRepository.save(pizza));
+        return result;
     }
 
     @Override
-    public PizzaDTO findById(Long pizzaId) {
-        Pizza foundPizza = pizzaRepository.findById(pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("The pizza by the provided id doesn't exist"));
+    public RenderedResponse findAll(int page, int size) {
+        RenderedResponse result = catalogSnapshot().findPage(page, size);
 
-        return pizzaDTOMapper.apply(foundPizza);
+        if (result == null) {
+            throw new ResourceNotFoundException("No pizzas exist");
+        }
+
+        return result;
     }
 
+    // the index answers with ids in rank order, the pizzas themselves come from the published menu
     @Override
-    public PizzaDTO findByName(String name) {
-        Pizza foundPizza = pizzaRepository.findByNameIgnoreCase(name)
-                .orElseThrow(() -> new ResourceNotFoundException("The pizza by the provided name doesn't exist"));
+    public List<PizzaDTO> search(String query, int limit) {
+        Set<String> violations = new HashSet<>();
+
+        if (query == null || query.isBlank()) {
+            violations.add("The search query is required");
+        }
 
-        return pizzaDTOMapper.apply(foundPizza);
+        if (limit < 1 || limit > MAXIMUM_SEARCH_LIMIT) {
+            violations.add("Between 1 and " + MAXIMUM_SEARCH_LIMIT + " pizzas can be requested at once");
+        }
+
+        if (!violations.isEmpty()) {
+            throw new ObjectNotValidException(violations);
+        }
+
+        PizzaCatalogSnapshot snapshot = catalogSnapshot();
+        List<PizzaDTO> result = pizzaSearchIndex.search(query, limit)
+                .stream()
+                .map(snapshot::findDTOById)
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (result.isEmpty()) {
+            throw new ResourceNotFoundException("No pizzas match the provided query");
+        }
+
+        return result;
     }
 
+    // served from the in-memory ranking and the published menu, neither touches the database
     @Override
-    public Page<PizzaDTO> findAll(int page, int size) {
-        Page<Pizza> pizzas = pizzaRepository.findAll(PageRequest.of(page, size));
+    public List<TopSellerDTO> findTopSellers(String window, int limit) {
+        Set<String> violations = new HashSet<>();
+        SalesWindow salesWindow = null;
 
-        if (pizzas.isEmpty()) {
-            throw new ResourceNotFoundException("No pizzas exist");
+        try {
+            salesWindow = SalesWindow.valueOf(window.toUpperCase(Locale.ROOT));
+        }
+
+        catch (IllegalArgumentException e) {
+            violations.add("The window must be one of hour, day or week");
+        }
+
+        if (limit < 1 || limit > MAXIMUM_TOP_SELLERS_LIMIT) {
+            violations.add("Between 1 and " + MAXIMUM_TOP_SELLERS_LIMIT + " pizzas can be requested at once");
+        }
+
+        if (!violations.isEmpty()) {
+            throw new ObjectNotValidException(violations);
         }
 
-        return pizzas.map(pizzaDTOMapper);
+        PizzaCatalogSnapshot snapshot = catalogSnapshot();
+        List<TopSellerDTO> result = new ArrayList<>();
+
+        for (PizzaSalesRanking.RankedPizza rankedPizza : pizzaSalesRanking.top(salesWindow, limit)) {
+            PizzaDTO pizza = snapshot.findDTOById(rankedPizza.pizzaId());
+
+            if (pizza != null) {
+                result.add(new TopSellerDTO(pizza, rankedPizza.units()));
+            }
+        }
+
+        if (result.isEmpty()) {
+            throw new ResourceNotFoundException("No pizzas were sold in the requested window");
+        }
+
+        return result;
     }
 
     @Override
@@ -126,50 +211,95 @@ public class PizzaServiceImplementation implements PizzaService {
             throw new ResourceAlreadyExistsException("This pizza name is already taken");
         }
 
-        List<Image> foundPizzaImages = imageRepository.findAllByPizzaId(pizzaId);
-
-        if (!foundPizzaImages.isEmpty()) {
-            foundPizzaImages.forEach(imageService::delete);
-        }
+        List<Image> foundPizzaImages = new ArrayList<>(foundPizza.getImages());
 
-        List<ImageDTO> imagesDTOs = new ArrayList<>();
         List<Image> finalImageList = new ArrayList<>();
 
-        for (MultipartFile image : request.images()) {
-            imagesDTOs.add(imageService.save(image));
-        }
-
-        for (ImageDTO imageDTO : imagesDTOs) {
-            Image image = new Image();
-
-            image.setImageId(imageDTO.imageId());
-            image.setUrl(imageDTO.url());
-            image.setType(imageDTO.type());
-
-            finalImageList.add(image);
+        for (ImageDTO imageDTO : imageService.saveAll(request.images())) {
+            finalImageList.add(imageRepository.getReferenceById(imageDTO.imageId()));
         }
 
         foundPizza.setName(request.name());
         foundPizza.setIngredients(request.ingredients());
         foundPizza.setPrice(request.price());
         foundPizza.setImages(finalImageList);
+        foundPizza.setLastModifiedDate(LocalDateTime.now());
+
+        Pizza savedPizza = pizzaRepository.save(foundPizza);
+        pizzaCatalogCache.invalidate(savedPizza.getPizzaId());
+        pizzaSearchIndex.indexAfterCommit(savedPizza.getPizzaId(), savedPizza.getName(), savedPizza.getIngredients());
+
+        // re-uploaded photos resolve to the same rows, release only drops images nothing links to anymore
+        foundPizzaImages.forEach(imageService::release);
 
-        return pizzaDTOMapper.apply(pizzaRepository.save(foundPizza));
+        return pizzaDTOMapper.apply(savedPizza);
     }
 
+    // the menu and the search drop the pizza right away, its reviews, orders and basket entries go in chunks in the background
     @Override
-    public void deleteById(Long pizzaId) {
-        Pizza foundPizza = pizzaRepository.findById(pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("The pizza by the provided id doesn't exist"));
+    public DeletionJobDTO deleteById(Long pizzaId) {
+        if (!pizzaRepository.existsById(pizzaId)) {
+            throw new ResourceNotFoundException("The pizza by the provided id doesn't exist");
+        }
+
+        DeletionJobDTO deletionJob = deletionJobRunner.submit(DeletionTarget.PIZZA, pizzaId);
+
+        pizzaCatalogCache.invalidate(pizzaId);
+        pizzaSearchIndex.removeAfterCommit(pizzaId);
+
+        return deletionJob;
+    }
 
-        Page<Review> foundPizzaReviews = reviewRepository.findAllByPizzaPizzaId(pizzaId, null);
-        List<Image> foundPizzaImages = imageRepository.findAllByPizzaId(pizzaId);
-        Page<Order> foundPizzaOrders = orderRepository.findAllByPizzasPizzaId(pizzaId, null);
+    // the images of a pizza are part of its catalog entry, so the published snapshot versions them without a query
+    // the tag follows the whole entry, a rating change costs one full response but a stale list is never confirmed
+    @Override
+    public ResourceVersionDTO findImagesVersionById(Long pizzaId) {
+        PizzaCatalogSnapshot snapshot = catalogSnapshot();
+        PizzaDTO pizza = snapshot.findDTOById(pizzaId);
+
+        if (pizza == null || pizza.images().isEmpty()) {
+            return null;
+        }
+
+        String eTag = snapshot.findById(pizzaId).eTag();
 
-        foundPizzaReviews.forEach(reviewService::delete);
-        foundPizzaImages.forEach(imageService::delete);
-        foundPizzaOrders.forEach(orderService::delete);
+        return new ResourceVersionDTO("\"images-" + eTag.substring(1, eTag.length() - 1) + "\"", null);
+    }
+
+    // building the first snapshot also fills the search index
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        catalogSnapshot();
+    }
 
-        pizzaRepository.delete(foundPizza);
+    // the whole menu is small, it is read in id order and rendered once per published version
+    // pizzas that are being deleted are left out, their rows may still be there for a while
+    // every rebuilt snapshot is also diffed into the search index, so writes made through other instances become
+    // searchable once the snapshot expires, the same as they reach the menu
+    private PizzaCatalogSnapshot catalogSnapshot() {
+        PizzaCatalogSnapshot snapshot = pizzaCatalogCache.get(() -> {
+            Set<Long> deletedPizzaIds = Set.copyOf(deletionJobRepository.findAllTargetIdsByTargetAndStatus(DeletionTarget.PIZZA, DeletionJobStatus.RUNNING));
+
+            return pizzaRepository.findAll(Sort.by("pizzaId"))
+                    .stream()
+                    .filter(pizza -> !deletedPizzaIds.contains(pizza.getPizzaId()))
+                    .map(pizzaDTOMapper)
+                    .toList();
+        }, pizzaIds -> {
+            Set<Long> deletedPizzaIds = Set.copyOf(deletionJobRepository.findAllTargetIdsByTargetAndStatus(DeletionTarget.PIZZA, DeletionJobStatus.RUNNING));
+
+            return pizzaRepository.findAllById(pizzaIds)
+                    .stream()
+                    .filter(pizza -> !deletedPizzaIds.contains(pizza.getPizzaId()))
+                    .map(pizzaDTOMapper)
+                    .toList();
+        });
+
+        pizzaSearchIndex.synchronize(snapshot.getBuiltAtNanos(), () -> snapshot.getPizzas()
+                .stream()
+                .map(pizza -> new PizzaSearchIndex.SearchableDocument(pizza.pizzaId(), pizza.name(), pizza.ingredients()))
+                .toList());
+
+        return snapshot;
     }
 }
@@ -0,0 +1,111 @@
+package org.moldidev.moldispizza.service.implementation;
+
+import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.entity.RefreshToken;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.exception.OperationNotPermittedException;
+import org.moldidev.moldispizza.exception.ResourceNotFoundException;
+import org.moldidev.moldispizza.repository.RefreshTokenRepository;
+import org.moldidev.moldispizza.request.customer.UserRefreshTokenRequest;
+import org.moldidev.moldispizza.security.TokenDenylist;
+import org.moldidev.moldispizza.security.VerifiedToken;
+import org.moldidev.moldispizza.service.JWTService;
+import org.moldidev.moldispizza.service.RefreshTokenService;
+import org.moldidev.moldispizza.validation.ObjectValidator;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class RefreshTokenServiceImplementation implements RefreshTokenService {
+
+    private static final long ACCESS_TOKEN_EXPIRATION = 1000L * 60 * 60; // 60 minutes = one hour
+    private static final long REFRESH_TOKEN_EXPIRATION = 1000L * 60 * 60 * 24; // 24 hours = one day
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JWTService jwtService;
+    private final TokenDenylist tokenDenylist;
+
+    private final ObjectValidator<UserRefreshTokenRequest> userRefreshTokenRequestValidator;
+
+    @Override
+    public String issue(User user) {
+        Date expiration = new Date(System.currentTimeMillis() + REFRESH_TOKEN_EXPIRATION);
+
+        return issue(user, UUID.randomUUID(), LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault()));
+    }
+
+    // reusing an already rotated token revokes its whole family, so that revocation has to survive the exception
+    @Override
+    @Transactional(noRollbackFor = OperationNotPermittedException.class)
+    public Map<String, String> rotate(UserRefreshTokenRequest request) {
+        userRefreshTokenRequestValidator.validate(request);
+
+        VerifiedToken verifiedToken = jwtService.verify(request.refreshToken());
+
+        if (!verifiedToken.isRefreshToken() || verifiedToken.tokenId() == null || tokenDenylist.isRevoked(verifiedToken)) {
+            throw new OperationNotPermittedException();
+        }
+
+        RefreshToken foundRefreshToken = refreshTokenRepository.findById(UUID.fromString(verifiedToken.tokenId()))
+                .orElseThrow(() -> new ResourceNotFoundException("The refresh token is invalid"));
+
+        // rotation never extends a family past the expiry of its first token, the user has to sign in again after that
+        if (!foundRefreshToken.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new OperationNotPermittedException();
+        }
+
+        if (refreshTokenRepository.markAsUsed(foundRefreshToken.getRefreshTokenId()) == 0) {
+            refreshTokenRepository.revokeFamily(foundRefreshToken.getFamilyId());
+            throw new OperationNotPermittedException();
+        }
+
+        User user = foundRefreshToken.getUser();
+
+        if (!user.getIsEnabled()) {
+            throw new DisabledException("This account is not yet verified");
+        }
+
+        if (user.getIsLocked()) {
+            throw new LockedException("This account is locked");
+        }
+
+        Map<String, String> tokens = new HashMap<>();
+
+        tokens.put("accessToken", jwtService.generateToken(user, ACCESS_TOKEN_EXPIRATION));
+        tokens.put("refreshToken", issue(user, foundRefreshToken.getFamilyId(), foundRefreshToken.getExpiresAt()));
+
+        return tokens;
+    }
+
+    @Override
+    public void revokeAllByUserId(Long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    private String issue(User user, UUID familyId, LocalDateTime expiresAt) {
+        Date expiration = Date.from(expiresAt.atZone(ZoneId.systemDefault()).toInstant());
+
+        RefreshToken refreshToken = new RefreshToken();
+
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUser(user);
+        refreshToken.setExpiresAt(expiresAt);
+        refreshToken.setIsUsed(false);
+        refreshToken.setIsRevoked(false);
+
+        RefreshToken savedRefreshToken = refreshTokenRepository.save(refreshToken);
+
+        return jwtService.generateRefreshToken(user, savedRefreshToken.getRefreshTokenId(), expiration);
+    }
+}
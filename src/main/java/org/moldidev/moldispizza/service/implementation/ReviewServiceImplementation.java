@@ -1,6 +1,10 @@
 package org.moldidev.moldispizza.service.implementation;
 
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.cache.PizzaCatalogCache;
+import org.moldidev.moldispizza.dto.KeysetCursorDTO;
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
 import org.moldidev.moldispizza.dto.ReviewDTO;
 import org.moldidev.moldispizza.entity.Pizza;
 import org.moldidev.moldispizza.entity.Review;
@@ -24,6 +28,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @Transactional
 @RequiredArgsConstructor
@@ -35,6 +41,7 @@ public class ReviewServiceImplementation implements ReviewService {
     private final UserRepository userRepository;
     private final PizzaRepository pizzaRepository;
     private final OrderRepository orderRepository;
+    private final PizzaCatalogCache pizzaCatalogCache;
 
     private final ObjectValidator<UserCreateReviewRequest> userCreateRequestValidator;
     private final ObjectValidator<ReviewUpdateAdminRequest> reviewUpdateAdminRequestValidator;
@@ -58,6 +65,18 @@ public class ReviewServiceImplementation implements ReviewService {
         return reviews.map(reviewDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<ReviewDTO> findAllAfter(String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Review> reviews = reviewRepository.findAllAfter(position.createdDate(), position.longId(), KeysetCursorDTO.limit(size));
+
+        if (reviews.isEmpty()) {
+            throw new ResourceNotFoundException("No reviews exist");
+        }
+
+        return KeysetPageDTO.of(reviews, size, Review::getReviewId, reviewDTOMapper);
+    }
+
     @Override
     public Page<ReviewDTO> findAllByUserId(Long userId, int page, int size) {
         Page<Review> reviews = reviewRepository.findAllByUserUserId(userId, PageRequest.of(page, size));
@@ -69,6 +88,18 @@ public class ReviewServiceImplementation implements ReviewService {
         return reviews.map(reviewDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<ReviewDTO> findAllByUserIdAfter(Long userId, String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Review> reviews = reviewRepository.findAllByUserIdAfter(userId, position.createdDate(), position.longId(), KeysetCursorDTO.limit(size));
+
+        if (reviews.isEmpty()) {
+            throw new ResourceNotFoundException("No reviews exist by the provided user id");
+        }
+
+        return KeysetPageDTO.of(reviews, size, Review::getReviewId, reviewDTOMapper);
+    }
+
     @Override
     public Page<ReviewDTO> findAllByPizzaId(Long pizzaId, int page, int size) {
         Page<Review> reviews = reviewRepository.findAllByPizzaPizzaId(pizzaId, PageRequest.of(page, size));
@@ -80,6 +111,38 @@ public class ReviewServiceImplementation implements ReviewService {
         return reviews.map(reviewDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<ReviewDTO> findAllByPizzaIdAfter(Long pizzaId, String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<Review> reviews = reviewRepository.findAllByPizzaIdAfter(pizzaId, position.createdDate(), position.longId(), KeysetCursorDTO.limit(size));
+
+        if (reviews.isEmpty()) {
+            throw new ResourceNotFoundException("No reviews exist by the provided pizza id");
+        }
+
+        return KeysetPageDTO.of(reviews, size, Review::getReviewId, reviewDTOMapper);
+    }
+
+    @Override
+    public ResourceVersionDTO findVersionById(Long reviewId) {
+        return ResourceVersionDTO.from("review", reviewRepository.findModificationSummaryById(reviewId));
+    }
+
+    @Override
+    public ResourceVersionDTO findVersionOfAll() {
+        return ResourceVersionDTO.from("reviews", reviewRepository.findModificationSummary());
+    }
+
+    @Override
+    public ResourceVersionDTO findVersionOfAllByUserId(Long userId) {
+        return ResourceVersionDTO.from("reviews", reviewRepository.findModificationSummaryByUserId(userId));
+    }
+
+    @Override
+    public ResourceVersionDTO findVersionOfAllByPizzaId(Long pizzaId) {
+        return ResourceVersionDTO.from("reviews", reviewRepository.findModificationSummaryByPizzaId(pizzaId));
+    }
+
     @Override
     public Boolean hasUserReviewedThePizza(Long userId, Long pizzaId, Authentication connectedUser) {
         securityService.validateAuthenticatedUser(connectedUser, userId);
@@ -119,34 +182,56 @@ public class ReviewServiceImplementation implements ReviewService {
         review.setRating(request.rating());
         review.setComment(request.comment());
 
-        return reviewDTOMapper.apply(reviewRepository.save(review));
+        Review savedReview = reviewRepository.save(review);
+        moveRating(foundPizza, 0, savedReview.getRating());
+
+        return reviewDTOMapper.apply(savedReview);
     }
 
     @Override
     public ReviewDTO updateById(Long reviewId, ReviewUpdateAdminRequest request) {
-        Review foundReview = reviewRepository.findById(reviewId)
+        // the rating moved off the aggregates must be the one this update replaces, not one read before another update
+        Review foundReview = reviewRepository.findWithLockByReviewId(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("The review by the provided id doesn't exist"));
 
         reviewUpdateAdminRequestValidator.validate(request);
 
+        int previousRating = foundReview.getRating();
+
         foundReview.setRating(request.rating());
         foundReview.setComment(request.comment());
 
-        return reviewDTOMapper.apply(reviewRepository.save(foundReview));
+        Review savedReview = reviewRepository.save(foundReview);
+
+        if (previousRating != savedReview.getRating()) {
+            moveRating(savedReview.getPizza(), previousRating, savedReview.getRating());
+        }
+
+        return reviewDTOMapper.apply(savedReview);
     }
 
     @Override
     public void deleteById(Long reviewId, Authentication connectedUser) {
-        Review foundReview = reviewRepository.findById(reviewId)
+        Review foundReview = reviewRepository.findWithLockByReviewId(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("The review by the provided id doesn't exist"));
 
         securityService.validateAuthenticatedUser(connectedUser, foundReview.getUser().getUserId());
 
         reviewRepository.delete(foundReview);
+        moveRating(foundReview.getPizza().getPizzaId(), foundReview.getRating(), 0);
     }
 
-    @Override
-    public void delete(Review review) {
-        reviewRepository.delete(review);
+    // the returned review embeds its pizza, so the loaded copy follows the update
+    private void moveRating(Pizza pizza, int removedRating, int addedRating) {
+        moveRating(pizza.getPizzaId(), removedRating, addedRating);
+        pizza.getRating().move(removedRating, addedRating);
+    }
+
+    // one atomic update in the review's transaction, concurrent reviews of the same pizza never lose a change
+    private void moveRating(Long pizzaId, int removedRating, int addedRating) {
+        pizzaRepository.moveRating(pizzaId, removedRating, addedRating);
+
+        // cached pizzas embed their rating
+        pizzaCatalogCache.invalidate(pizzaId);
     }
 }
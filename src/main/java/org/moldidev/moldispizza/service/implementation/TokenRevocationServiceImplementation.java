@@ -0,0 +1,157 @@
+package org.moldidev.moldispizza.service.implementation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.entity.RevokedToken;
+import org.moldidev.moldispizza.entity.User;
+import org.moldidev.moldispizza.exception.ObjectNotValidException;
+import org.moldidev.moldispizza.exception.OperationNotPermittedException;
+import org.moldidev.moldispizza.exception.ResourceNotFoundException;
+import org.moldidev.moldispizza.repository.RefreshTokenRepository;
+import org.moldidev.moldispizza.repository.RevokedTokenRepository;
+import org.moldidev.moldispizza.repository.UserRepository;
+import org.moldidev.moldispizza.request.customer.UserSignOutRequest;
+import org.moldidev.moldispizza.security.TokenDenylist;
+import org.moldidev.moldispizza.security.VerifiedToken;
+import org.moldidev.moldispizza.service.JWTService;
+import org.moldidev.moldispizza.service.SecurityService;
+import org.moldidev.moldispizza.service.TokenRevocationService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class TokenRevocationServiceImplementation implements TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JWTService jwtService;
+    private final SecurityService securityService;
+    private final TokenDenylist tokenDenylist;
+
+    @Override
+    public void signOut(String authorizationHeader, UserSignOutRequest request) {
+        List<VerifiedToken> tokens = new ArrayList<>();
+
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            tokens.add(jwtService.verify(authorizationHeader.substring(7)));
+        }
+
+        if (request != null && request.refreshToken() != null && !request.refreshToken().isBlank()) {
+            tokens.add(jwtService.verify(request.refreshToken()));
+        }
+
+        if (request != null && request.rememberMeToken() != null && !request.rememberMeToken().isBlank()) {
+            tokens.add(jwtService.verify(request.rememberMeToken()));
+        }
+
+        if (tokens.isEmpty()) {
+            throw new ObjectNotValidException(Set.of("At least one token is required"));
+        }
+
+        String username = tokens.get(0).subject();
+
+        for (VerifiedToken token : tokens) {
+            if (token.subject() == null || !token.subject().equalsIgnoreCase(username)) {
+                throw new OperationNotPermittedException();
+            }
+        }
+
+        tokens.forEach(this::revoke);
+    }
+
+    @Override
+    public void revokeAllByUserId(Long userId, Authentication connectedUser) {
+        securityService.validateAuthenticatedUser(connectedUser, userId);
+
+        User foundUser = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("The user by the provided id doesn't exist"));
+
+        LocalDateTime now = LocalDateTime.now();
+
+        foundUser.setTokensRevokedAt(now);
+        userRepository.save(foundUser);
+        refreshTokenRepository.revokeAllByUserId(userId);
+
+        tokenDenylist.revokeAllIssuedBefore(foundUser.getUsername(), toEpochMilli(now));
+    }
+
+    // picks up revocations made by other instances and drops the entries of tokens that have expired anyway
+    @Scheduled(fixedDelayString = "${security.token-denylist.refresh-interval-milliseconds}")
+    public void refreshDenylist() {
+        revokedTokenRepository.deleteAllExpired(LocalDateTime.now());
+        loadDenylist();
+    }
+
+    @PostConstruct
+    public void loadDenylist() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> revokedTokens = new HashMap<>();
+        Map<String, Long> cutoffs = new HashMap<>();
+
+        for (RevokedToken revokedToken : revokedTokenRepository.findAllByExpiresAtAfter(now)) {
+            revokedTokens.put(revokedToken.getTokenId(), toEpochSecond(revokedToken.getExpiresAt()));
+        }
+
+        for (User user : userRepository.findAllByTokensRevokedAtAfter(now.minusSeconds(TokenDenylist.MAXIMUM_TOKEN_LIFETIME_SECONDS))) {
+            cutoffs.put(user.getUsername(), toEpochMilli(user.getTokensRevokedAt()));
+        }
+
+        tokenDenylist.rebuild(revokedTokens, cutoffs);
+    }
+
+    private void revoke(VerifiedToken token) {
+        // refresh tokens are always checked against their row, so revoking the family is enough
+        if (token.isRefreshToken()) {
+            refreshTokenRepository.findById(UUID.fromString(token.tokenId()))
+                    .ifPresent(refreshToken -> refreshTokenRepository.revokeFamily(refreshToken.getFamilyId()));
+            return;
+        }
+
+        // tokens issued before token ids existed can only be revoked through the user's cutoff
+        // it lies one millisecond past the token, since only tokens issued strictly before a cutoff are rejected
+        if (token.tokenId() == null) {
+            Long issuedAtMillis = token.issuedAtMillis();
+            LocalDateTime cutoff = issuedAtMillis != null
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(issuedAtMillis + 1), ZoneId.systemDefault())
+                    : LocalDateTime.now();
+
+            userRepository.findByUsernameIgnoreCase(token.subject()).ifPresent(user -> {
+                if (user.getTokensRevokedAt() == null || user.getTokensRevokedAt().isBefore(cutoff)) {
+                    user.setTokensRevokedAt(cutoff);
+                    userRepository.save(user);
+                }
+            });
+
+            tokenDenylist.revokeAllIssuedBefore(token.subject(), toEpochMilli(cutoff));
+            return;
+        }
+
+        RevokedToken revokedToken = new RevokedToken();
+
+        revokedToken.setTokenId(token.tokenId());
+        revokedToken.setUsername(token.subject());
+        revokedToken.setExpiresAt(LocalDateTime.ofInstant(token.expiration().toInstant(), ZoneId.systemDefault()));
+
+        revokedTokenRepository.save(revokedToken);
+
+        tokenDenylist.revoke(token.tokenId(), token.expiration().getTime() / 1000);
+    }
+
+    private long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,8 +1,14 @@
 package org.moldidev.moldispizza.service.implementation;
 
 import lombok.RequiredArgsConstructor;
+import org.moldidev.moldispizza.dto.DeletionJobDTO;
+import org.moldidev.moldispizza.dto.KeysetCursorDTO;
+import org.moldidev.moldispizza.dto.KeysetPageDTO;
+import org.moldidev.moldispizza.cache.UserDetailsCache;
+import org.moldidev.moldispizza.dto.ResourceVersionDTO;
 import org.moldidev.moldispizza.dto.UserDTO;
 import org.moldidev.moldispizza.entity.*;
+import org.moldidev.moldispizza.enumeration.DeletionTarget;
 import org.moldidev.moldispizza.enumeration.Provider;
 import org.moldidev.moldispizza.enumeration.Role;
 import org.moldidev.moldispizza.exception.ObjectNotValidException;
@@ -13,6 +19,7 @@ import org.moldidev.moldispizza.repository.*;
 import org.moldidev.moldispizza.request.admin.UserCreateAdminRequest;
 import org.moldidev.moldispizza.request.admin.UserDetailsUpdateAdminRequest;
 import org.moldidev.moldispizza.request.customer.*;
+import org.moldidev.moldispizza.security.SecurityVersionRegistry;
 import org.moldidev.moldispizza.service.*;
 import org.moldidev.moldispizza.validation.ObjectValidator;
 import org.springframework.data.domain.Page;
@@ -20,7 +27,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,12 +45,15 @@ public class UserServiceImplementation implements UserService {
     private final BasketRepository basketRepository;
     private final ImageRepository imageRepository;
     private final ImageService imageService;
-    private final ReviewRepository reviewRepository;
-    private final OrderRepository orderRepository;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
     private final SecurityService securityService;
     private final JWTService jwtService;
+    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
+    private final SecurityVersionRegistry securityVersionRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final DeletionJobRunner deletionJobRunner;
 
     private final ObjectValidator<UserSignInRequest> userSignInRequestValidator;
     private final ObjectValidator<UserSignUpRequest> userSignUpRequestValidator;
@@ -72,12 +82,10 @@ public class UserServiceImplementation implements UserService {
             throw new ResourceAlreadyExistsException("This email address is already taken");
         }
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
         User user = new User();
 
         user.setUsername(request.username());
-        user.setPassword(encoder.encode(request.password()));
+        user.setPassword(passwordEncoder.encode(request.password()));
         user.setEmail(request.email());
         user.setFirstName(request.firstName());
         user.setLastName(request.lastName());
@@ -92,7 +100,7 @@ public class UserServiceImplementation implements UserService {
         Basket basket = new Basket();
         basket.setUser(savedUser);
         basket.setTotalPrice(0.0);
-        basket.setPizzas(new ArrayList<>());
+        basket.setItems(new ArrayList<>());
 
         basketRepository.save(basket);
 
@@ -121,15 +129,13 @@ public class UserServiceImplementation implements UserService {
             throw new ObjectNotValidException(validationErrors);
         }
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
         User user = new User();
         user.setUsername(request.username());
         user.setFirstName(request.firstName());
         user.setLastName(request.lastName());
         user.setEmail(request.email());
         user.setAddress(request.address());
-        user.setPassword(encoder.encode(request.password()));
+        user.setPassword(passwordEncoder.encode(request.password()));
         user.setRole(Role.CUSTOMER);
         user.setProvider(Provider.LOCAL);
         user.setIsLocked(false);
@@ -144,7 +150,7 @@ public class UserServiceImplementation implements UserService {
         Basket basket = new Basket();
         basket.setUser(savedUser);
         basket.setTotalPrice(0.0);
-        basket.setPizzas(new ArrayList<>());
+        basket.setItems(new ArrayList<>());
 
         basketRepository.save(basket);
 
@@ -162,7 +168,7 @@ public class UserServiceImplementation implements UserService {
         User authenticatedUser = authenticate(request.username(), request.password());
 
         String accessToken = jwtService.generateToken(authenticatedUser, 1000L * 60 * 60); // 60 minutes = one hour
-        String refreshToken = jwtService.generateToken(authenticatedUser, 1000L * 60 * 60 * 24); // 24 hours = one day
+        String refreshToken = refreshTokenService.issue(authenticatedUser);
         String rememberMeToken = null;
 
         if (rememberMe) {
@@ -213,6 +219,21 @@ public class UserServiceImplementation implements UserService {
         return userDTOMapper.apply(foundUser);
     }
 
+    @Override
+    public ResourceVersionDTO findVersionById(Long userId) {
+        return ResourceVersionDTO.from("user", userRepository.findModificationSummaryById(userId));
+    }
+
+    // only the owner gets a version up front, anyone else goes through the regular lookup and its ownership check
+    @Override
+    public ResourceVersionDTO findVersionByUsername(String username, Authentication connectedUser) {
+        if (connectedUser == null || !connectedUser.getName().equalsIgnoreCase(username)) {
+            return null;
+        }
+
+        return ResourceVersionDTO.from("user", userRepository.findModificationSummaryByUsername(username));
+    }
+
     @Override
     public UserDTO findByEmail(String email) {
         User foundUser = userRepository.findByEmailIgnoreCase(email)
@@ -240,6 +261,18 @@ public class UserServiceImplementation implements UserService {
         return users.map(userDTOMapper);
     }
 
+    @Override
+    public KeysetPageDTO<UserDTO> findAllAfter(String cursor, int size) {
+        KeysetCursorDTO position = KeysetCursorDTO.decode(cursor);
+        List<User> users = userRepository.findAllAfter(position.createdDate(), position.longId(), KeysetCursorDTO.limit(size));
+
+        if (users.isEmpty()) {
+            throw new ResourceNotFoundException("No users exist");
+        }
+
+        return KeysetPageDTO.of(users, size, User::getUserId, userDTOMapper);
+    }
+
     @Override
     public UserDTO verifyByVerificationToken(UserActivateAccountRequest request) {
         userActivateAccountRequestValidator.validate(request);
@@ -253,6 +286,8 @@ public class UserServiceImplementation implements UserService {
 
         if (foundUser.getVerificationToken().equals(request.verificationCode())) {
             foundUser.setIsEnabled(true);
+            invalidateAuthentication(foundUser);
+
             return userDTOMapper.apply(userRepository.save(foundUser));
         }
 
@@ -300,9 +335,8 @@ public class UserServiceImplementation implements UserService {
         User foundUser = userRepository.findByResetPasswordToken(request.resetPasswordCode())
                 .orElseThrow(() -> new ResourceNotFoundException("The user by the provided token doesn't exist"));
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
-        foundUser.setPassword(encoder.encode(request.newPassword()));
+        foundUser.setPassword(passwordEncoder.encode(request.newPassword()));
+        invalidateAuthentication(foundUser);
 
         return userDTOMapper.apply(userRepository.save(foundUser));
     }
@@ -318,9 +352,7 @@ public class UserServiceImplementation implements UserService {
         User foundUser = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("The user by the provided id doesn't exist"));
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
-        if (!encoder.matches(request.currentPassword(), foundUser.getPassword())) {
+        if (!passwordEncoder.matches(request.currentPassword(), foundUser.getPassword())) {
             violationErrors.add("Invalid current password provided");
             throw new ObjectNotValidException(violationErrors);
         }
@@ -330,7 +362,9 @@ public class UserServiceImplementation implements UserService {
             throw new ObjectNotValidException(violationErrors);
         }
 
-        foundUser.setPassword(encoder.encode(request.newPassword()));
+        foundUser.setPassword(passwordEncoder.encode(request.newPassword()));
+        invalidateAuthentication(foundUser);
+
         return userDTOMapper.apply(userRepository.save(foundUser));
     }
 
@@ -344,9 +378,17 @@ public class UserServiceImplementation implements UserService {
         Image foundImage = imageRepository.findById(imageId)
                 .orElseThrow(() -> new ResourceNotFoundException("The image by the provided id doesn't exist"));
 
+        Image previousImage = foundUser.getImage();
+
         foundUser.setImage(foundImage);
 
-        return userDTOMapper.apply(userRepository.save(foundUser));
+        User savedUser = userRepository.save(foundUser);
+
+        if (previousImage != null && !previousImage.getImageId().equals(imageId)) {
+            imageService.release(previousImage);
+        }
+
+        return userDTOMapper.apply(savedUser);
     }
 
     @Override
@@ -359,9 +401,10 @@ public class UserServiceImplementation implements UserService {
         Image userImage = foundUser.getImage();
 
         if (userImage != null) {
-            imageService.delete(userImage);
             foundUser.setImage(null);
-            return userDTOMapper.apply(userRepository.save(foundUser));
+            User savedUser = userRepository.save(foundUser);
+            imageService.release(userImage);
+            return userDTOMapper.apply(savedUser);
         }
 
         throw new ResourceNotFoundException("This user has no image");
@@ -378,18 +421,19 @@ public class UserServiceImplementation implements UserService {
 
         userDetailsUpdateRequestValidator.validate(request);
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
-        if (!encoder.matches(request.password(), foundUser.getPassword())) {
+        if (!passwordEncoder.matches(request.password(), foundUser.getPassword())) {
             validationErrors.add("Invalid password provided");
             throw new ObjectNotValidException(validationErrors);
         }
 
+        String previousUsername = foundUser.getUsername();
+
         foundUser.setUsername(request.username());
         foundUser.setEmail(request.email());
         foundUser.setFirstName(request.firstName());
         foundUser.setLastName(request.lastName());
         foundUser.setAddress(request.address());
+        invalidateDetails(foundUser, previousUsername);
 
         return userDTOMapper.apply(userRepository.save(foundUser));
     }
@@ -401,11 +445,14 @@ public class UserServiceImplementation implements UserService {
 
         userDetailsUpdateAdminRequestValidator.validate(request);
 
+        String previousUsername = foundUser.getUsername();
+
         foundUser.setUsername(request.username());
         foundUser.setEmail(request.email());
         foundUser.setFirstName(request.firstName());
         foundUser.setLastName(request.lastName());
         foundUser.setAddress(request.address());
+        invalidateDetails(foundUser, previousUsername);
 
         return userDTOMapper.apply(userRepository.save(foundUser));
     }
@@ -426,20 +473,19 @@ public class UserServiceImplementation implements UserService {
             throw new ObjectNotValidException(validationErrors);
         }
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
         foundUser.setFirstName(request.firstName());
         foundUser.setLastName(request.lastName());
         foundUser.setEmail(request.email());
         foundUser.setAddress(request.address());
-        foundUser.setPassword(encoder.encode(request.password()));
+        foundUser.setPassword(passwordEncoder.encode(request.password()));
 
         foundUser.setIsEnabled(true);
+        invalidateAuthentication(foundUser);
 
         userRepository.save(foundUser);
 
         String accessToken = jwtService.generateToken(foundUser, 1000L * 60 * 60); // 60 minutes = one hour
-        String refreshToken = jwtService.generateToken(foundUser, 1000L * 60 * 60 * 24); // 24 hours = one day
+        String refreshToken = refreshTokenService.issue(foundUser);
         String rememberMeToken = jwtService.generateToken(foundUser, 1000L * 60 * 60 * 24 * 30); // 30 days = one month;
 
         Map<String, String> tokens = new HashMap<>();
@@ -452,27 +498,18 @@ public class UserServiceImplementation implements UserService {
     }
 
     @Override
-    public void deleteById(Long userId) {
+    public DeletionJobDTO deleteById(Long userId) {
         User foundUser = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("The user by the provided id doesn't exist"));
 
-        Page<Order> foundUserOrders = orderRepository.findAllByUserUserId(userId, null);
-        Page<Review> foundUserReviews = reviewRepository.findAllByUserUserId(userId, null);
-        Optional<Basket> foundUserBasket = basketRepository.findByUserUserId(userId);
-        Optional<Image> foundUserImage = imageRepository.findByUserId(userId);
-
-        foundUserBasket.ifPresent(basketRepository::delete);
-        foundUserImage.ifPresent(imageService::delete);
-
-        if (!foundUserReviews.isEmpty()) {
-            reviewRepository.deleteAll(foundUserReviews);
-        }
-
-        if (!foundUserOrders.isEmpty()) {
-            orderRepository.deleteAll(foundUserOrders);
-        }
+        // the account is locked out at once, its reviews, orders and the row itself go in chunks in the background
+        // a token that is no longer current falls back to the row, and the authentication filter rejects a locked account
+        foundUser.setIsEnabled(false);
+        foundUser.setIsLocked(true);
+        userRepository.save(foundUser);
+        invalidateAuthentication(foundUser);
 
-        userRepository.delete(foundUser);
+        return deletionJobRunner.submit(DeletionTarget.USER, userId);
     }
 
     @Override
@@ -503,6 +540,26 @@ public class UserServiceImplementation implements UserService {
         return foundUser.getProvider();
     }
 
+    // only credentials, role and the enabled or locked state retire the tokens already issued
+    // the refresh families go with them, otherwise a stolen refresh token keeps minting access tokens after a reset
+    private void invalidateAuthentication(User user) {
+        securityVersionRegistry.advance(user);
+        userDetailsCache.evict(user.getUsername());
+        refreshTokenService.revokeAllByUserId(user.getUserId());
+    }
+
+    // the username is the subject of every token, so renaming the account is the only detail edit that retires them
+    private void invalidateDetails(User user, String previousUsername) {
+        userDetailsCache.evict(previousUsername);
+
+        if (!previousUsername.equals(user.getUsername())) {
+            invalidateAuthentication(user);
+            return;
+        }
+
+        userDetailsCache.evict(user.getUsername());
+    }
+
     private String generateVerificationToken(User user) {
         UUID uuid = UUID.randomUUID();
         String username = user.getUsername();
@@ -0,0 +1,19 @@
+package org.moldidev.moldispizza.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// every node reads and writes image content through this, so Image.url only holds a key that means the same thing everywhere
+public interface ImageStorage {
+    void put(String key, InputStream content, long size, String type) throws IOException;
+    StoredImage get(String key) throws IOException;
+    boolean exists(String key) throws IOException;
+    void delete(String key) throws IOException;
+    Optional<URI> findPresignedUrl(String key);
+
+    // ordered by key as plain string comparison, so the listing can be merged with rows sorted the same way
+    Stream<StorageEntry> list() throws IOException;
+}
@@ -0,0 +1,96 @@
+package org.moldidev.moldispizza.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class ImageStorageConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+    public ImageStorage localImageStorage(@Value("${storage.local.directory}") String directory) {
+        return new LocalImageStorage(Paths.get(directory));
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+    static class S3StorageConfiguration {
+
+        @Value("${storage.s3.endpoint}")
+        private String endpoint;
+
+        @Value("${storage.s3.region}")
+        private String region;
+
+        @Value("${storage.s3.access-key}")
+        private String accessKey;
+
+        @Value("${storage.s3.secret-key}")
+        private String secretKey;
+
+        // minio and most other s3 compatible stores only support path style addressing
+        @Value("${storage.s3.path-style-access}")
+        private boolean pathStyleAccess;
+
+        @Bean
+        public S3Client s3Client() {
+            var builder = S3Client
+                    .builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentialsProvider())
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build());
+
+            if (!endpoint.isBlank()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+
+            return builder.build();
+        }
+
+        @Bean
+        public S3Presigner s3Presigner() {
+            var builder = S3Presigner
+                    .builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentialsProvider())
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build());
+
+            if (!endpoint.isBlank()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+
+            return builder.build();
+        }
+
+        @Bean
+        public ImageStorage s3ImageStorage(S3Client s3Client,
+                                           S3Presigner s3Presigner,
+                                           @Value("${storage.s3.bucket}") String bucket,
+                                           @Value("${storage.s3.presigned-url-expiration-minutes}") long presignedUrlExpirationMinutes) {
+            return new S3ImageStorage(s3Client, s3Presigner, bucket, Duration.ofMinutes(presignedUrlExpirationMinutes));
+        }
+
+        // falls back to the usual aws environment, profile and instance role lookup when no keys are configured
+        private AwsCredentialsProvider credentialsProvider() {
+            if (accessKey.isBlank()) {
+                return DefaultCredentialsProvider.create();
+            }
+
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.moldidev.moldispizza.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.moldidev.moldispizza.entity.Image;
+import org.moldidev.moldispizza.entity.ImageVariant;
+import org.moldidev.moldispizza.repository.ImageRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// rows written before the storage abstraction hold a path on the node that received the upload,
+// each node copies the files it has into the configured storage and rewrites those rows to plain keys
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageStorageMigration implements ApplicationRunner {
+
+    public static final String LEGACY_IMAGE_DIRECTORY = "src/main/resources/images/";
+
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments arguments) throws IOException {
+        int migratedImages = 0;
+        int skippedImages = 0;
+
+        for (Image image : imageRepository.findAllByUrlStartingWith(LEGACY_IMAGE_DIRECTORY)) {
+            String key = migrate(image.getUrl(), image.getType());
+
+            // the file lives on another node, that node migrates the row when it starts
+            if (key == null) {
+                skippedImages++;
+                continue;
+            }
+
+            image.setUrl(key);
+
+            for (ImageVariant variant : image.getVariants()) {
+                String variantKey = migrate(variant.getUrl(), variant.getType());
+
+                // variants are cheap to rebuild, they are generated again on the next start
+                if (variantKey == null) {
+                    image.getVariants().clear();
+                    break;
+                }
+
+                variant.setUrl(variantKey);
+            }
+
+            imageRepository.save(image);
+            migratedImages++;
+        }
+
+        if (migratedImages > 0 || skippedImages > 0) {
+            log.info("Migrated {} images into the image storage, {} are not available on this node", migratedImages, skippedImages);
+        }
+    }
+
+    private String migrate(String url, String type) throws IOException {
+        if (!url.startsWith(LEGACY_IMAGE_DIRECTORY)) {
+            return url;
+        }
+
+        String key = url.substring(LEGACY_IMAGE_DIRECTORY.length());
+
+        if (imageStorage.exists(key)) {
+            return key;
+        }
+
+        Path source = Paths.get(url);
+
+        if (!Files.isReadable(source)) {
+            return null;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(source)) {
+            imageStorage.put(key, inputStream, Files.size(source), type);
+        }
+
+        return key;
+    }
+}
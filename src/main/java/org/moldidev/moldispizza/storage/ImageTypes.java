@@ -0,0 +1,80 @@
+package org.moldidev.moldispizza.storage;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+// the declared content type of an upload is the client's word, only the leading bytes decide what an image is served as
+public final class ImageTypes {
+
+    public static final Set<String> SERVABLE_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_SIGNATURE = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_SIGNATURE = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_SIGNATURE = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_SIGNATURE = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int HEADER_LENGTH = 12;
+
+    private ImageTypes() {
+    }
+
+    public static Optional<String> detect(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return detect(inputStream.readNBytes(HEADER_LENGTH));
+        }
+    }
+
+    public static Optional<String> detect(byte[] header) {
+        if (startsWith(header, 0, JPEG_SIGNATURE)) {
+            return Optional.of("image/jpeg");
+        }
+
+        if (startsWith(header, 0, PNG_SIGNATURE)) {
+            return Optional.of("image/png");
+        }
+
+        if (startsWith(header, 0, GIF87_SIGNATURE) || startsWith(header, 0, GIF89_SIGNATURE)) {
+            return Optional.of("image/gif");
+        }
+
+        if (startsWith(header, 0, RIFF_SIGNATURE) && startsWith(header, 8, WEBP_SIGNATURE)) {
+            return Optional.of("image/webp");
+        }
+
+        return Optional.empty();
+    }
+
+    // rows stored before uploads were sniffed can still carry html, svg or anything else the client declared
+    public static boolean isServable(String type) {
+        if (type == null) {
+            return false;
+        }
+
+        try {
+            MediaType mediaType = MediaType.parseMediaType(type);
+
+            return SERVABLE_TYPES.contains(mediaType.getType().toLowerCase(Locale.ROOT) + "/" + mediaType.getSubtype().toLowerCase(Locale.ROOT));
+        }
+
+        catch (InvalidMediaTypeException exception) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] signature) {
+        return header.length >= offset + signature.length
+                && Arrays.equals(header, offset, offset + signature.length, signature, 0, signature.length);
+    }
+}
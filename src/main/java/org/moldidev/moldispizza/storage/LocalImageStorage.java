@@ -0,0 +1,127 @@
+package org.moldidev.moldispizza.storage;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class LocalImageStorage implements ImageStorage {
+
+    private final Path directory;
+
+    public LocalImageStorage(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size, String type) throws IOException {
+        Path target = resolve(key);
+
+        Files.createDirectories(target.getParent());
+
+        // written next to the target and moved into place, so readers never see a partial file
+        Path temporaryFile = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+
+        try {
+            Files.copy(content, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @Override
+    public StoredImage get(String key) throws IOException {
+        Path path = resolve(key);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        return new StoredImage(
+                new FileSystemResource(path),
+                attributes.size(),
+                attributes.lastModifiedTime().toInstant()
+        );
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    // the files are streamed by the application itself
+    @Override
+    public Optional<URI> findPresignedUrl(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Stream<StorageEntry> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Stream.empty();
+        }
+
+        return list(directory);
+    }
+
+    // only one directory is listed at a time, a subdirectory sorts as its name followed by a slash like the keys inside it
+    private Stream<StorageEntry> list(Path parent) throws IOException {
+        List<Path> children;
+
+        try (Stream<Path> paths = Files.list(parent)) {
+            children = paths
+                    .sorted(Comparator.comparing(this::sortKey))
+                    .toList();
+        }
+
+        return children
+                .stream()
+                .flatMap(child -> {
+                    try {
+                        if (Files.isDirectory(child)) {
+                            return list(child);
+                        }
+
+                        return Stream.of(new StorageEntry(key(child), Files.getLastModifiedTime(child).toInstant()));
+                    }
+
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private String sortKey(Path path) {
+        return Files.isDirectory(path) ? path.getFileName() + "/" : path.getFileName().toString();
+    }
+
+    private String key(Path path) {
+        return directory.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    private Path resolve(String key) throws IOException {
+        Path path = directory.resolve(key).normalize();
+
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            throw new NoSuchFileException(key);
+        }
+
+        return path;
+    }
+}
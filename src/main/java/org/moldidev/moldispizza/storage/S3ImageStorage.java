@@ -0,0 +1,162 @@
+package org.moldidev.moldispizza.storage;
+
+import org.springframework.core.io.InputStreamResource;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class S3ImageStorage implements ImageStorage {
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final String bucket;
+    private final Duration presignedUrlExpiration;
+
+    public S3ImageStorage(S3Client s3Client, S3Presigner s3Presigner, String bucket, Duration presignedUrlExpiration) {
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.bucket = bucket;
+        this.presignedUrlExpiration = presignedUrlExpiration;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size, String type) throws IOException {
+        PutObjectRequest request = PutObjectRequest
+                .builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(type)
+                .contentLength(size)
+                .build();
+
+        try {
+            s3Client.putObject(request, RequestBody.fromInputStream(content, size));
+        }
+
+        catch (SdkException e) {
+            throw new IOException("Could not store the object " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StoredImage get(String key) throws IOException {
+        GetObjectRequest request = GetObjectRequest
+                .builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        try {
+            ResponseInputStream<GetObjectResponse> response = s3Client.getObject(request);
+            long size = response.response().contentLength();
+
+            // the length is known from the response, so the body can be streamed without buffering it
+            InputStreamResource resource = new InputStreamResource(response) {
+                @Override
+                public long contentLength() {
+                    return size;
+                }
+            };
+
+            return new StoredImage(resource, size, response.response().lastModified());
+        }
+
+        catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+
+        catch (SdkException e) {
+            throw new IOException("Could not fetch the object " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HeadObjectRequest request = HeadObjectRequest
+                .builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        try {
+            s3Client.headObject(request);
+            return true;
+        }
+
+        catch (NoSuchKeyException e) {
+            return false;
+        }
+
+        catch (SdkException e) {
+            throw new IOException("Could not look up the object " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        DeleteObjectRequest request = DeleteObjectRequest
+                .builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        try {
+            s3Client.deleteObject(request);
+        }
+
+        catch (SdkException e) {
+            throw new IOException("Could not delete the object " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    // the bucket listing is paged lazily and already sorted by key
+    @Override
+    public Stream<StorageEntry> list() {
+        ListObjectsV2Request request = ListObjectsV2Request
+                .builder()
+                .bucket(bucket)
+                .build();
+
+        return s3Client.listObjectsV2Paginator(request)
+                .contents()
+                .stream()
+                .map(object -> new StorageEntry(object.key(), object.lastModified()));
+    }
+
+    // clients download straight from the bucket, the application only signs the request
+    @Override
+    public Optional<URI> findPresignedUrl(String key) {
+        GetObjectPresignRequest request = GetObjectPresignRequest
+                .builder()
+                .signatureDuration(presignedUrlExpiration)
+                .getObjectRequest(getObjectRequest -> getObjectRequest.bucket(bucket).key(key))
+                .build();
+
+        try {
+            return Optional.of(s3Presigner.presignGetObject(request).url().toURI());
+        }
+
+        catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.moldidev.moldispizza.storage;
+
+import java.time.Instant;
+
+public record StorageEntry(String key,
+                           Instant lastModified) {
+}
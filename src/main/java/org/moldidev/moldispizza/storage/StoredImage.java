@@ -0,0 +1,10 @@
+package org.moldidev.moldispizza.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.time.Instant;
+
+public record StoredImage(Resource resource,
+                          Long size,
+                          Instant lastModified) {
+}
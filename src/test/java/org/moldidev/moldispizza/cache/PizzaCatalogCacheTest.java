@@ -0,0 +1,173 @@
+package org.moldidev.moldispizza.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.moldidev.moldispizza.dto.CacheStatisticsDTO;
+import org.moldidev.moldispizza.dto.PizzaDTO;
+import org.moldidev.moldispizza.dto.PizzaRatingDTO;
+import org.moldidev.moldispizza.response.RenderedResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PizzaCatalogCacheTest {
+
+    private static final Function<Collection<Long>, List<PizzaDTO>> NO_RELOAD = pizzaIds -> fail("no single pizza was invalidated");
+
+    private final PizzaCatalogCache pizzaCatalogCache = new PizzaCatalogCache(new ObjectMapper().findAndRegisterModules(), 3600);
+
+    @Test
+    void snapshotIsBuiltOnceAndReused() {
+        AtomicInteger loads = new AtomicInteger();
+
+        PizzaCatalogSnapshot first = pizzaCatalogCache.get(() -> {
+            loads.incrementAndGet();
+            return List.of(pizza(1L, "Margherita"));
+        }, NO_RELOAD);
+
+        PizzaCatalogSnapshot second = pizzaCatalogCache.get(() -> {
+            loads.incrementAndGet();
+            return List.of(pizza(1L, "Margherita"));
+        }, NO_RELOAD);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleSnapshotIsServedWhileAnotherReaderRebuilds() throws Exception {
+        PizzaCatalogSnapshot stale = pizzaCatalogCache.get(() -> List.of(pizza(1L, "Margherita")), NO_RELOAD);
+
+        pizzaCatalogCache.invalidate();
+
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<PizzaCatalogSnapshot> rebuild = CompletableFuture.supplyAsync(() -> pizzaCatalogCache.get(() -> {
+            building.countDown();
+            await(release);
+            return List.of(pizza(1L, "Margherita"), pizza(2L, "Diavola"));
+        }, NO_RELOAD));
+
+        assertTrue(building.await(5, TimeUnit.SECONDS));
+
+        PizzaCatalogSnapshot servedMeanwhile = pizzaCatalogCache.get(() -> fail("only one reader rebuilds"), NO_RELOAD);
+
+        assertSame(stale, servedMeanwhile);
+
+        release.countDown();
+
+        PizzaCatalogSnapshot rebuilt = rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, rebuilt.getPizzaCount());
+        assertSame(rebuilt, pizzaCatalogCache.get(() -> fail("the rebuilt snapshot is published"), NO_RELOAD));
+        assertEquals(1L, pizzaCatalogCache.getStatistics().staleHitCount());
+    }
+
+    @Test
+    void buildOverlappingAWriteIsServedButNotPublished() {
+        PizzaCatalogSnapshot overlapping = pizzaCatalogCache.get(() -> {
+            pizzaCatalogCache.invalidate();
+            return List.of(pizza(1L, "Margherita"));
+        }, NO_RELOAD);
+
+        PizzaCatalogSnapshot next = pizzaCatalogCache.get(() -> List.of(pizza(1L, "Margherita Speciale")), NO_RELOAD);
+
+        assertNotSame(overlapping, next);
+        assertNotNull(next.findByName("margherita speciale"));
+        assertSame(next, pizzaCatalogCache.get(() -> fail("the second build is published"), NO_RELOAD));
+    }
+
+    @Test
+    void writeToOnePizzaOnlyReloadsThatPizza() {
+        PizzaCatalogSnapshot first = pizzaCatalogCache.get(() -> List.of(pizza(1L, "Margherita"), pizza(2L, "Diavola"), pizza(3L, "Capricciosa")), NO_RELOAD);
+        RenderedResponse unchanged = first.findById(1L);
+
+        pizzaCatalogCache.invalidate(2L);
+        pizzaCatalogCache.invalidate(3L);
+        pizzaCatalogCache.invalidate(4L);
+
+        List<Collection<Long>> reloads = new ArrayList<>();
+
+        PizzaCatalogSnapshot second = pizzaCatalogCache.get(() -> fail("only the changed pizzas are read"), pizzaIds -> {
+            reloads.add(Set.copyOf(pizzaIds));
+            return List.of(pizza(4L, "Quattro Formaggi"), pizza(2L, "Diavola Piccante"));
+        });
+
+        assertEquals(List.of(Set.of(2L, 3L, 4L)), reloads);
+        assertEquals(List.of(1L, 2L, 4L), second.getPizzas().stream().map(PizzaDTO::pizzaId).toList());
+        assertSame(unchanged, second.findById(1L));
+        assertNull(second.findById(3L));
+        assertNull(second.findByName("diavola"));
+        assertNotNull(second.findByName("diavola piccante"));
+        assertSame(second, pizzaCatalogCache.get(() -> fail("the reloaded snapshot is published"), NO_RELOAD));
+        assertEquals(1L, pizzaCatalogCache.getStatistics().partialRebuildCount());
+    }
+
+    @Test
+    void fullInvalidationReadsTheWholeMenu() {
+        pizzaCatalogCache.get(() -> List.of(pizza(1L, "Margherita")), NO_RELOAD);
+
+        pizzaCatalogCache.invalidate(1L);
+        pizzaCatalogCache.invalidate();
+
+        PizzaCatalogSnapshot next = pizzaCatalogCache.get(() -> List.of(pizza(1L, "Margherita"), pizza(2L, "Diavola")), NO_RELOAD);
+
+        assertEquals(2, next.getPizzaCount());
+        assertEquals(2L, pizzaCatalogCache.getStatistics().fullRebuildCount());
+    }
+
+    @Test
+    void lookupStatisticsAreKeptPerLookup() {
+        PizzaCatalogSnapshot snapshot = pizzaCatalogCache.get(() -> List.of(pizza(1L, "Margherita")), NO_RELOAD);
+
+        snapshot.findById(1L);
+        snapshot.findById(2L);
+        snapshot.findByName("MARGHERITA");
+        snapshot.findPage(0, 10);
+        snapshot.findPage(0, 10);
+
+        pizzaCatalogCache.invalidate(1L);
+
+        Map<String, CacheStatisticsDTO> lookups = pizzaCatalogCache.getStatistics().lookups();
+
+        assertEquals(1L, lookups.get("pizzasById").hitCount());
+        assertEquals(1L, lookups.get("pizzasById").missCount());
+        assertEquals(1L, lookups.get("pizzasById").invalidationCount());
+        assertEquals(1L, lookups.get("pizzasByName").hitCount());
+        assertEquals(1L, lookups.get("pizzaPages").hitCount());
+        assertEquals(1L, lookups.get("pizzaPages").missCount());
+
+        pizzaCatalogCache.get(() -> fail("only the changed pizza is read"), pizzaIds -> List.of(pizza(1L, "Margherita Speciale")));
+
+        lookups = pizzaCatalogCache.getStatistics().lookups();
+
+        assertEquals(1L, lookups.get("pizzasById").evictionCount());
+        assertEquals(1L, lookups.get("pizzaPages").evictionCount());
+    }
+
+    private static PizzaDTO pizza(Long pizzaId, String name) {
+        return new PizzaDTO(pizzaId, name, List.of(), "tomato, mozzarella", 30.0, new PizzaRatingDTO(0L, 0.0, List.of(0L, 0L, 0L, 0L, 0L)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.moldidev.moldispizza.dto;
+
+import org.junit.jupiter.api.Test;
+import org.moldidev.moldispizza.exception.ObjectNotValidException;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorDTOTest {
+
+    private static final LocalDateTime CREATED_DATE = LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000);
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        KeysetCursorDTO cursor = KeysetCursorDTO.of(CREATED_DATE, 42L);
+        KeysetCursorDTO decoded = KeysetCursorDTO.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals(CREATED_DATE, decoded.createdDate());
+        assertEquals(42L, decoded.longId());
+    }
+
+    @Test
+    void uuidIdsSurviveTheRoundTrip() {
+        UUID orderId = UUID.randomUUID();
+
+        assertEquals(orderId, KeysetCursorDTO.decode(KeysetCursorDTO.of(CREATED_DATE, orderId).encode()).uuidId());
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = KeysetCursorDTO.of(CREATED_DATE, UUID.randomUUID()).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void blankCursorStartsBeforeEveryRow() {
+        for (String cursor : new String[]{null, "", "  "}) {
+            KeysetCursorDTO first = KeysetCursorDTO.decode(cursor);
+
+            assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), first.createdDate());
+            assertEquals(0L, first.longId());
+            assertEquals(new UUID(0L, 0L), first.uuidId());
+        }
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.decode("not base64!"));
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.decode(encode("yesterday,1")));
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.decode(encode(CREATED_DATE.toString())));
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.decode(encode(CREATED_DATE + ",abc")).longId());
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.decode(encode(CREATED_DATE + ",abc")).uuidId());
+    }
+
+    @Test
+    void limitReadsOneExtraRowAndIsBounded() {
+        Pageable pageable = KeysetCursorDTO.limit(10);
+
+        assertEquals(0, pageable.getPageNumber());
+        assertEquals(11, pageable.getPageSize());
+        assertEquals(101, KeysetCursorDTO.limit(100).getPageSize());
+
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.limit(0));
+        assertThrows(ObjectNotValidException.class, () -> KeysetCursorDTO.limit(101));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
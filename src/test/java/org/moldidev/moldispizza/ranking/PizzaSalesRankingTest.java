@@ -0,0 +1,194 @@
+package org.moldidev.moldispizza.ranking;
+
+import org.junit.jupiter.api.Test;
+import org.moldidev.moldispizza.enumeration.SalesWindow;
+import org.moldidev.moldispizza.ranking.PizzaSalesRanking.Bucket;
+import org.moldidev.moldispizza.ranking.PizzaSalesRanking.RankedPizza;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PizzaSalesRankingTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-05T10:00:00Z"));
+    private final PizzaSalesRanking pizzaSalesRanking = new PizzaSalesRanking(clock);
+
+    @Test
+    void salesCountInEveryWindowAndTiesGoToTheLowerId() {
+        pizzaSalesRanking.record(List.of(3L, 1L, 3L, 2L), null, 1);
+
+        List<RankedPizza> expected = List.of(new RankedPizza(3L, 2), new RankedPizza(1L, 1), new RankedPizza(2L, 1));
+
+        assertEquals(expected, pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(expected, pizzaSalesRanking.top(SalesWindow.DAY, 10));
+        assertEquals(expected, pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+        assertEquals(expected.subList(0, 2), pizzaSalesRanking.top(SalesWindow.HOUR, 2));
+    }
+
+    @Test
+    void bucketsLeaveTheirWindowsAsTimeAdvances() {
+        pizzaSalesRanking.record(List.of(1L), null, 1);
+
+        clock.advance(Duration.ofMinutes(30));
+        pizzaSalesRanking.record(List.of(2L), null, 1);
+
+        clock.advance(Duration.ofMinutes(31));
+
+        assertEquals(List.of(new RankedPizza(2L, 1)), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(2, pizzaSalesRanking.top(SalesWindow.DAY, 10).size());
+
+        clock.advance(Duration.ofMinutes(30));
+
+        assertEquals(List.of(), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+
+        // both sales are in the 10:00 hour bucket, it leaves the day once 10:00 comes round again
+        clock.set(Instant.parse("2026-01-06T09:59:00Z"));
+
+        assertEquals(2, pizzaSalesRanking.top(SalesWindow.DAY, 10).size());
+
+        clock.set(Instant.parse("2026-01-06T10:00:00Z"));
+
+        assertEquals(List.of(), pizzaSalesRanking.top(SalesWindow.DAY, 10));
+        assertEquals(2, pizzaSalesRanking.top(SalesWindow.WEEK, 10).size());
+
+        clock.set(Instant.parse("2026-01-12T10:00:00Z"));
+
+        assertEquals(List.of(), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+    }
+
+    @Test
+    void reusedRingSlotsOnlyHoldTheirNewBucket() {
+        pizzaSalesRanking.record(List.of(1L), null, 1);
+
+        // the same minute slot and, a week on, the same hour slot come round again
+        clock.advance(Duration.ofMinutes(PizzaSalesRanking.MINUTE_BUCKETS));
+        pizzaSalesRanking.record(List.of(2L), null, 1);
+
+        assertEquals(List.of(new RankedPizza(2L, 1)), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(List.of(new RankedPizza(1L, 1), new RankedPizza(2L, 1)), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+
+        clock.set(Instant.parse("2026-01-12T10:00:00Z"));
+        pizzaSalesRanking.record(List.of(3L), null, 1);
+
+        assertEquals(List.of(new RankedPizza(2L, 1), new RankedPizza(3L, 1)), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+    }
+
+    @Test
+    void aJumpPastEveryRingClearsAllWindows() {
+        pizzaSalesRanking.record(List.of(1L, 2L), null, 1);
+
+        clock.advance(Duration.ofDays(30));
+        pizzaSalesRanking.record(List.of(2L), null, 1);
+
+        assertEquals(List.of(new RankedPizza(2L, 1)), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(List.of(new RankedPizza(2L, 1)), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+    }
+
+    @Test
+    void salesAreCountedAndTakenBackAtTheirPlacedTime() {
+        LocalDateTime placedDate = clock.localNow().minusMinutes(90);
+
+        pizzaSalesRanking.record(List.of(1L, 1L), placedDate, 1);
+
+        assertEquals(List.of(), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(List.of(new RankedPizza(1L, 2)), pizzaSalesRanking.top(SalesWindow.DAY, 10));
+
+        clock.advance(Duration.ofMinutes(5));
+        pizzaSalesRanking.record(List.of(1L), placedDate, -1);
+
+        assertEquals(List.of(new RankedPizza(1L, 1)), pizzaSalesRanking.top(SalesWindow.DAY, 10));
+
+        pizzaSalesRanking.record(List.of(1L), placedDate, -1);
+
+        assertEquals(List.of(), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+    }
+
+    @Test
+    void restoreSkipsBucketsOutsideTheirWindow() {
+        long now = PizzaSalesRanking.epochMinute(clock.localNow());
+        long hour = Math.floorDiv(now, 60) * 60;
+
+        pizzaSalesRanking.record(List.of(9L), null, 1);
+        pizzaSalesRanking.restore(List.of(
+                new Bucket(1L, now - 10, 1, 4),
+                new Bucket(1L, now - PizzaSalesRanking.MINUTE_BUCKETS, 1, 100),
+                new Bucket(1L, hour, 60, 4),
+                new Bucket(2L, hour - 2 * 24 * 60, 60, 7),
+                new Bucket(3L, hour - PizzaSalesRanking.HOUR_BUCKETS * 60L, 60, 100)
+        ));
+
+        assertEquals(List.of(new RankedPizza(1L, 4), new RankedPizza(9L, 1)), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(List.of(new RankedPizza(1L, 4), new RankedPizza(9L, 1)), pizzaSalesRanking.top(SalesWindow.DAY, 10));
+        assertEquals(List.of(new RankedPizza(2L, 7), new RankedPizza(1L, 4), new RankedPizza(9L, 1)), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+
+        // restored buckets roll out like recorded ones
+        clock.advance(Duration.ofMinutes(PizzaSalesRanking.MINUTE_BUCKETS));
+
+        assertEquals(List.of(), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+    }
+
+    @Test
+    void replaceDropsWhatWasRecordedBefore() {
+        long now = PizzaSalesRanking.epochMinute(clock.localNow());
+
+        pizzaSalesRanking.record(List.of(1L, 1L), null, 1);
+        pizzaSalesRanking.replace(List.of(new Bucket(2L, now, 1, 3), new Bucket(2L, Math.floorDiv(now, 60) * 60, 60, 3)));
+
+        assertEquals(List.of(new RankedPizza(2L, 3)), pizzaSalesRanking.top(SalesWindow.HOUR, 10));
+        assertEquals(List.of(new RankedPizza(2L, 3)), pizzaSalesRanking.top(SalesWindow.WEEK, 10));
+    }
+
+    @Test
+    void bucketsOfASaleFollowItsAge() {
+        LocalDateTime now = clock.localNow();
+        long minute = PizzaSalesRanking.epochMinute(now);
+        long hourStart = Math.floorDiv(minute, 60) * 60;
+
+        assertEquals(List.of(new Bucket(1L, minute, 1, 2), new Bucket(1L, hourStart, 60, 2)), pizzaSalesRanking.bucketsOf(1L, now, 2));
+        assertEquals(List.of(new Bucket(1L, minute, 1, 1), new Bucket(1L, hourStart, 60, 1)), pizzaSalesRanking.bucketsOf(1L, now.plusHours(3), 1));
+        assertEquals(List.of(new Bucket(1L, hourStart - 120, 60, -1)), pizzaSalesRanking.bucketsOf(1L, now.minusHours(2), -1));
+        assertEquals(List.of(), pizzaSalesRanking.bucketsOf(1L, now.minusDays(8), 1));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        LocalDateTime localNow() {
+            return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
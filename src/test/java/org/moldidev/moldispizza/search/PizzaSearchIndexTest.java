@@ -0,0 +1,94 @@
+package org.moldidev.moldispizza.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.moldidev.moldispizza.search.PizzaSearchIndex.SearchableDocument;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PizzaSearchIndexTest {
+
+    private final PizzaSearchIndex pizzaSearchIndex = new PizzaSearchIndex();
+
+    @BeforeEach
+    void fillIndex() {
+        pizzaSearchIndex.synchronize(1, () -> List.of(
+                new SearchableDocument(1L, "Margherita", "tomato, mozzarella, basil"),
+                new SearchableDocument(2L, "Diavola", "tomato, mozzarella, spicy salami"),
+                new SearchableDocument(3L, "Quattro Formaggi", "mozzarella, gorgonzola, parmesan"),
+                new SearchableDocument(4L, "Salami", "tomato, mozzarella")
+        ));
+    }
+
+    @Test
+    void everyQueryTermMustPrefixATerm() {
+        assertEquals(List.of(1L), pizzaSearchIndex.search("marg", 10));
+        assertEquals(List.of(2L), pizzaSearchIndex.search("spi TOM", 10));
+        assertEquals(List.of(3L), pizzaSearchIndex.search("gorgon parm", 10));
+        assertEquals(List.of(), pizzaSearchIndex.search("basil salami", 10));
+        assertEquals(List.of(), pizzaSearchIndex.search("ozzarella", 10));
+        assertEquals(List.of(), pizzaSearchIndex.search(" ,; ", 10));
+    }
+
+    @Test
+    void nameMatchesRankAboveIngredientMatches() {
+        assertEquals(List.of(4L, 2L), pizzaSearchIndex.search("salami", 10));
+        assertEquals(List.of(4L, 2L), pizzaSearchIndex.search("sal", 10));
+    }
+
+    @Test
+    void equalScoresAreOrderedByNameAndLimited() {
+        assertEquals(List.of(2L, 1L, 3L, 4L), pizzaSearchIndex.search("mozzarella", 10));
+        assertEquals(List.of(2L, 1L), pizzaSearchIndex.search("mozz", 2));
+    }
+
+    @Test
+    void exactTermsRankAbovePrefixes() {
+        pizzaSearchIndex.index(5L, "Tonno", "tomatoes, tuna");
+        pizzaSearchIndex.index(6L, "Marinara", "tomato, garlic");
+
+        assertEquals(List.of(2L, 1L, 6L, 4L, 5L), pizzaSearchIndex.search("tomato", 10));
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        pizzaSearchIndex.index(5L, "Crème Fraîche", "crème fraîche, bacon");
+
+        assertEquals(List.of(5L), pizzaSearchIndex.search("CREME fraiche", 10));
+    }
+
+    @Test
+    void synchronizeAppliesOnlyTheDifference() {
+        pizzaSearchIndex.synchronize(2, () -> List.of(
+                new SearchableDocument(1L, "Margherita", "tomato, mozzarella, basil"),
+                new SearchableDocument(2L, "Diavola Piccante", "tomato, mozzarella, spicy salami"),
+                new SearchableDocument(5L, "Marinara", "tomato, garlic")
+        ));
+
+        assertEquals(List.of(), pizzaSearchIndex.search("quattro", 10));
+        assertEquals(List.of(2L), pizzaSearchIndex.search("piccante", 10));
+        assertEquals(List.of(1L, 5L), pizzaSearchIndex.search("mar", 10));
+        assertEquals(List.of(2L), pizzaSearchIndex.search("salami", 10));
+    }
+
+    @Test
+    void olderReadsAreNotApplied() {
+        pizzaSearchIndex.synchronize(1, () -> fail("the generation was already applied"));
+        pizzaSearchIndex.synchronize(0, () -> fail("an older read is skipped"));
+
+        assertEquals(List.of(3L), pizzaSearchIndex.search("quattro", 10));
+    }
+
+    @Test
+    void removedPizzasAreNoLongerFound() {
+        pizzaSearchIndex.remove(4L);
+
+        assertEquals(List.of(2L), pizzaSearchIndex.search("salami", 10));
+
+        pizzaSearchIndex.index(7L, "Salame Piccante", "salami, chili");
+
+        assertEquals(List.of(2L, 7L), pizzaSearchIndex.search("salami", 10));
+    }
+}
@@ -0,0 +1,122 @@
+package org.moldidev.moldispizza.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+// the rules as they were declared on the filter chain before the trie, checked one after another
+// each matcher parses the pattern the way the mvc request matcher does with the path pattern handler mappings
+final class ReferenceRouteAuthorization {
+
+    private static final String PERMIT_ALL = "permitAll";
+    private static final String AUTHENTICATED_ROLES = "CUSTOMER,ADMINISTRATOR";
+
+    static final List<Rule> RULES = List.of(
+            new Rule(null, "/v2/api-docs", PERMIT_ALL),
+            new Rule(null, "/v3/api-docs", PERMIT_ALL),
+            new Rule(null, "/v3/api-docs/**", PERMIT_ALL),
+            new Rule(null, "/swagger-resources", PERMIT_ALL),
+            new Rule(null, "/swagger-resources/**", PERMIT_ALL),
+            new Rule(null, "/configuration/ui", PERMIT_ALL),
+            new Rule(null, "/configuration/security", PERMIT_ALL),
+            new Rule(null, "/swagger-ui/**", PERMIT_ALL),
+            new Rule(null, "/webjars/**", PERMIT_ALL),
+            new Rule(null, "/swagger-ui.html", PERMIT_ALL),
+
+            new Rule(HttpMethod.POST, "/api/v1/authentication/**", PERMIT_ALL),
+            new Rule(null, "/oauth2/authorization/**", PERMIT_ALL),
+
+            new Rule(HttpMethod.GET, "/api/v1/users/enabled/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.GET, "/api/v1/users/username=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.GET, "/api/v1/users/provider/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/users/complete-registration-oauth2-user/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/users/verify", PERMIT_ALL),
+            new Rule(HttpMethod.PATCH, "/api/v1/users/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/users/remove-image/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/users/set-image/id=**/image-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.POST, "/api/v1/users/resend-confirmation-email/email=**", PERMIT_ALL),
+            new Rule(HttpMethod.POST, "/api/v1/users/send-reset-password-token", PERMIT_ALL),
+            new Rule(HttpMethod.POST, "/api/v1/users/reset-password", PERMIT_ALL),
+            new Rule(HttpMethod.POST, "/api/v1/users/change-password/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.POST, "/api/v1/users/revoke-tokens/id=**", AUTHENTICATED_ROLES),
+
+            new Rule(HttpMethod.GET, "/api/v1/pizzas**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/pizzas/id=**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/pizzas/search", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/pizzas/top-sellers", PERMIT_ALL),
+
+            new Rule(HttpMethod.GET, "/api/v1/reviews/exists/user-id=**/pizza-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.GET, "/api/v1/reviews/pizza-id=**", PERMIT_ALL),
+            new Rule(HttpMethod.PATCH, "/api/v1/reviews/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.POST, "/api/v1/reviews/user-id=**/pizza-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.DELETE, "/api/v1/reviews/id=**", AUTHENTICATED_ROLES),
+
+            new Rule(HttpMethod.GET, "/api/v1/baskets/user-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/baskets/add-pizza/user-id=**/pizza-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/baskets/remove-pizza/user-id=**/pizza-id=**", AUTHENTICATED_ROLES),
+
+            new Rule(HttpMethod.GET, "/api/v1/orders/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.GET, "/api/v1/orders/exists/user-id=**/pizza-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.GET, "/api/v1/orders/user-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.PATCH, "/api/v1/orders/set-paid/id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.POST, "/api/v1/orders/user-id=**", AUTHENTICATED_ROLES),
+            new Rule(HttpMethod.POST, "/api/v1/orders/pay-pending-order/id=**", AUTHENTICATED_ROLES),
+
+            new Rule(HttpMethod.GET, "/api/v1/images/user-id=**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/images/pizza-id=**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/images/id=**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/images/raw/id=**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/images/batch/pizza-id=**", PERMIT_ALL),
+            new Rule(HttpMethod.GET, "/api/v1/images/batch/ids=**", PERMIT_ALL),
+            new Rule(HttpMethod.POST, "/api/v1/images", AUTHENTICATED_ROLES)
+    );
+
+    private ReferenceRouteAuthorization() {
+    }
+
+    static RequestMatcherDelegatingAuthorizationManager build() {
+        RequestMatcherDelegatingAuthorizationManager.Builder builder = RequestMatcherDelegatingAuthorizationManager.builder();
+
+        for (Rule rule : RULES) {
+            builder.add(matcher(rule.method(), rule.pattern()), manager(rule.access()));
+        }
+
+        return builder
+                .add(AnyRequestMatcher.INSTANCE, AuthorityAuthorizationManager.hasRole("ADMINISTRATOR"))
+                .build();
+    }
+
+    private static RequestMatcher matcher(HttpMethod method, String pattern) {
+        PathPattern pathPattern = PathPatternParser.defaultInstance.parse(pattern);
+
+        return request -> (method == null || method.name().equals(request.getMethod()))
+                && pathPattern.matches(pathWithinApplication(request));
+    }
+
+    private static PathContainer pathWithinApplication(HttpServletRequest request) {
+        return RequestPath.parse(request.getRequestURI(), request.getContextPath()).pathWithinApplication();
+    }
+
+    private static AuthorizationManager<RequestAuthorizationContext> manager(String access) {
+        if (PERMIT_ALL.equals(access)) {
+            return (authentication, context) -> new AuthorizationDecision(true);
+        }
+
+        return AuthorityAuthorizationManager.hasAnyRole(access.split(","));
+    }
+
+    record Rule(HttpMethod method, String pattern, String access) {
+    }
+}
@@ -0,0 +1,51 @@
+package org.moldidev.moldispizza.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+// the trie against the request matcher chain it replaced, for a cheap catalog read and a request that reaches the fallback
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteAuthorizationBenchmark {
+
+    @Param({"GET /api/v1/pizzas/id=12", "GET /api/v1/images/batch/ids=1,2,3", "DELETE /api/v1/pizzas/id=12"})
+    public String route;
+
+    private RouteAuthorizationManager routeAuthorizationManager;
+    private RequestMatcherDelegatingAuthorizationManager referenceAuthorizationManager;
+    private MockHttpServletRequest request;
+    private RequestAuthorizationContext context;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() {
+        String[] methodAndPath = route.split(" ");
+
+        routeAuthorizationManager = new SecurityConfiguration(null, null, null, null, null, null).routeAuthorizationManager();
+        referenceAuthorizationManager = ReferenceRouteAuthorization.build();
+        request = new MockHttpServletRequest(methodAndPath[0], methodAndPath[1]);
+        context = new RequestAuthorizationContext(request);
+        authentication = new TestingAuthenticationToken("customer", "password", "ROLE_CUSTOMER");
+    }
+
+    @Benchmark
+    public AuthorizationDecision trie() {
+        return routeAuthorizationManager.check(() -> authentication, context);
+    }
+
+    @Benchmark
+    public AuthorizationDecision requestMatcherChain() {
+        return referenceAuthorizationManager.check(() -> authentication, request);
+    }
+}
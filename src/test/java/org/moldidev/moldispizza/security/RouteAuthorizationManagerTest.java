@@ -0,0 +1,120 @@
+package org.moldidev.moldispizza.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteAuthorizationManagerTest {
+
+    private static final List<String> METHODS = List.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS");
+
+    private static final Authentication ANONYMOUS = new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+    private static final Authentication CUSTOMER = new TestingAuthenticationToken("customer", "password", "ROLE_CUSTOMER");
+    private static final Authentication ADMINISTRATOR = new TestingAuthenticationToken("administrator", "password", "ROLE_ADMINISTRATOR");
+
+    private static final List<Authentication> AUTHENTICATIONS = List.of(ANONYMOUS, CUSTOMER, ADMINISTRATOR);
+
+    private final RouteAuthorizationManager routeAuthorizationManager = new SecurityConfiguration(null, null, null, null, null, null).routeAuthorizationManager();
+    private final RequestMatcherDelegatingAuthorizationManager referenceAuthorizationManager = ReferenceRouteAuthorization.build();
+
+    @Test
+    void everyDeclaredRuleGivesTheSameDecisionAsTheRequestMatcherChain() {
+        Set<String> paths = new LinkedHashSet<>();
+
+        for (ReferenceRouteAuthorization.Rule rule : ReferenceRouteAuthorization.RULES) {
+            String pattern = rule.pattern();
+
+            paths.add(pattern.replace("**", "7"));
+            paths.add(pattern.replace("**", ""));
+            paths.add(pattern.replace("**", "7/8"));
+            paths.add(pattern.replace("**", "7") + "/");
+            paths.add(pattern.replace("**", "7") + "/extra");
+            paths.add(pattern.replace("**", "abc-def"));
+        }
+
+        List<String> mismatches = new ArrayList<>();
+
+        for (String method : METHODS) {
+            for (String path : paths) {
+                for (Authentication authentication : AUTHENTICATIONS) {
+                    boolean expected = referenceDecision(method, path, authentication);
+                    boolean actual = trieDecision(method, path, authentication);
+
+                    if (expected != actual) {
+                        mismatches.add(method + " " + path + " as " + authentication.getName() + ": expected " + expected + " but was " + actual);
+                    }
+                }
+            }
+        }
+
+        assertTrue(mismatches.isEmpty(), String.join("\n", mismatches));
+    }
+
+    @Test
+    void catalogReadsArePublic() {
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas", ANONYMOUS, true);
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas/id=12", ANONYMOUS, true);
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas/search", ANONYMOUS, true);
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas/top-sellers", ANONYMOUS, true);
+    }
+
+    @Test
+    void pizzasWildcardOnlyExtendsTheLastSegment() {
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas-archive", ANONYMOUS, true);
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas/name=margherita", ANONYMOUS, false);
+        assertDecision(HttpMethod.GET, "/api/v1/pizzas/name=margherita", ADMINISTRATOR, true);
+        assertDecision(HttpMethod.POST, "/api/v1/pizzas", CUSTOMER, false);
+    }
+
+    @Test
+    void identifierWildcardsRequireAnAuthenticatedRole() {
+        assertDecision(HttpMethod.GET, "/api/v1/users/enabled/id=5", ANONYMOUS, false);
+        assertDecision(HttpMethod.GET, "/api/v1/users/enabled/id=5", CUSTOMER, true);
+        assertDecision(HttpMethod.PATCH, "/api/v1/users/set-image/id=5/image-id=9", CUSTOMER, true);
+        assertDecision(HttpMethod.PATCH, "/api/v1/baskets/add-pizza/user-id=5/pizza-id=9", ANONYMOUS, false);
+        assertDecision(HttpMethod.DELETE, "/api/v1/reviews/id=3", CUSTOMER, true);
+    }
+
+    @Test
+    void methodsWithoutARuleFallBackToAdministrator() {
+        assertDecision(HttpMethod.DELETE, "/api/v1/pizzas/id=12", CUSTOMER, false);
+        assertDecision(HttpMethod.DELETE, "/api/v1/pizzas/id=12", ADMINISTRATOR, true);
+        assertDecision(HttpMethod.PUT, "/api/v1/users/id=5", CUSTOMER, false);
+        assertDecision(HttpMethod.OPTIONS, "/swagger-ui/index.html", ANONYMOUS, true);
+        assertDecision(HttpMethod.GET, "/api/v1/unknown", CUSTOMER, false);
+        assertDecision(HttpMethod.GET, "/", ANONYMOUS, false);
+    }
+
+    private void assertDecision(HttpMethod method, String path, Authentication authentication, boolean granted) {
+        assertEquals(granted, referenceDecision(method.name(), path, authentication), "reference " + method + " " + path);
+        assertEquals(granted, trieDecision(method.name(), path, authentication), "trie " + method + " " + path);
+    }
+
+    private boolean referenceDecision(String method, String path, Authentication authentication) {
+        return granted(referenceAuthorizationManager.check(() -> authentication, new MockHttpServletRequest(method, path)));
+    }
+
+    private boolean trieDecision(String method, String path, Authentication authentication) {
+        RequestAuthorizationContext context = new RequestAuthorizationContext(new MockHttpServletRequest(method, path));
+
+        return granted(routeAuthorizationManager.check(() -> authentication, context));
+    }
+
+    private static boolean granted(AuthorizationDecision decision) {
+        return decision != null && decision.isGranted();
+    }
+}
@@ -0,0 +1,46 @@
+package org.moldidev.moldispizza.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageTypesTest {
+
+    @Test
+    void rasterSignaturesAreRecognised() {
+        assertEquals(Optional.of("image/jpeg"), ImageTypes.detect(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals(Optional.of("image/png"), ImageTypes.detect(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13}));
+        assertEquals(Optional.of("image/gif"), ImageTypes.detect(ascii("GIF89a\u0001\u0000")));
+        assertEquals(Optional.of("image/gif"), ImageTypes.detect(ascii("GIF87a")));
+        assertEquals(Optional.of("image/webp"), ImageTypes.detect(ascii("RIFF$\u0000\u0000\u0000WEBPVP8 ")));
+    }
+
+    @Test
+    void markupAndUnknownContentIsRejected() {
+        assertEquals(Optional.empty(), ImageTypes.detect(ascii("<!DOCTYPE html><script>")));
+        assertEquals(Optional.empty(), ImageTypes.detect(ascii("<svg xmlns=\"http://www.w3.org/2000/svg\">")));
+        assertEquals(Optional.empty(), ImageTypes.detect(ascii("RIFF$\u0000\u0000\u0000WAVEfmt ")));
+        assertEquals(Optional.empty(), ImageTypes.detect(new byte[]{(byte) 0xFF, (byte) 0xD8}));
+        assertEquals(Optional.empty(), ImageTypes.detect(new byte[0]));
+    }
+
+    @Test
+    void onlyRasterTypesAreServedInline() {
+        assertTrue(ImageTypes.isServable("image/jpeg"));
+        assertTrue(ImageTypes.isServable("IMAGE/PNG"));
+        assertTrue(ImageTypes.isServable("image/webp;q=1"));
+
+        assertFalse(ImageTypes.isServable("text/html"));
+        assertFalse(ImageTypes.isServable("image/svg+xml"));
+        assertFalse(ImageTypes.isServable("application/xhtml+xml"));
+        assertFalse(ImageTypes.isServable("not a type"));
+        assertFalse(ImageTypes.isServable(null));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}